@@ -0,0 +1,176 @@
+package com.unisys;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how long the packaged application takes until it serves HTTP, with and without AOT and AppCDS.
+ * <p>
+ * Build the jar with the {@code aot} profile first, so the AOT-generated classes and the CDS archive exist, then:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.unisys.StartupBenchmark \
+ *     -Dbenchmark.args="aot-cds 5 9091 dev"
+ * </pre>
+ * Arguments: label, runs per variant, HTTP port, Spring profiles. Each run starts a fresh JVM and measures the
+ * time until {@code /management/health} answers with any status (the database may be down, the server is still
+ * ready), and the startup time Spring Boot logs. The variants are plain JVM, {@code -Dspring.aot.enabled=true},
+ * the CDS archive, and both; a variant whose prerequisite is missing from the build is skipped. The median, minimum
+ * and maximum per variant are printed and written to {@code target/startup-<label>.json}.
+ * </p>
+ * <p>
+ * Changes to the code itself (e.g. how beans are wired) are compared by running this with a different label on
+ * the build before and after the change.
+ * </p>
+ */
+public final class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String label = args.length > 0 ? args[0] : "run";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 9091;
+        String profiles = args.length > 3 ? args[3] : "dev";
+
+        Path extracted = Path.of("target", "application");
+        Path jar;
+        try (var files = Files.list(Path.of("target"))) {
+            jar = files.filter(file -> file.toString().endsWith(".jar") && !file.toString().endsWith("-plain.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in target/, run mvn package first"));
+        }
+        Path extractedJar = extracted.resolve(jar.getFileName());
+        Path archive = extracted.resolve("application.jsa");
+        Path launchJar = Files.exists(extractedJar) ? extractedJar : jar;
+        boolean aot = hasAotClasses(jar);
+        boolean cds = Files.exists(archive) && launchJar.equals(extractedJar);
+
+        List<String[]> variants = new ArrayList<>();
+        variants.add(new String[]{"jvm"});
+        if (aot) {
+            variants.add(new String[]{"aot", "-Dspring.aot.enabled=true"});
+        }
+        if (cds) {
+            variants.add(new String[]{"cds", "-XX:SharedArchiveFile=" + archive});
+        }
+        if (aot && cds) {
+            variants.add(new String[]{"aot+cds", "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive});
+        }
+        if (!aot || !cds) {
+            System.out.println("Skipping variants without " + (aot ? "" : "AOT classes ") + (cds ? "" : "CDS archive ")
+                    + "(build with mvn -Paot package)");
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        StringJoiner report = new StringJoiner(",", "{\"label\":\"" + label + "\",\"runs\":" + runs + ",\"variants\":{", "}}");
+        for (String[] variant : variants) {
+            long[] readyNanos = new long[runs];
+            double[] startedSeconds = new double[runs];
+            for (int run = 0; run < runs; run++) {
+                List<String> command = new ArrayList<>();
+                command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+                command.addAll(Arrays.asList(variant).subList(1, variant.length));
+                command.addAll(List.of("-Dserver.port=" + port, "-Dspring.profiles.active=" + profiles,
+                        "-jar", launchJar.toString()));
+                long[] result = startOnce(command, client, port);
+                readyNanos[run] = result[0];
+                startedSeconds[run] = result[1] / 1e3;
+            }
+            Arrays.sort(readyNanos);
+            Arrays.sort(startedSeconds);
+            String line = String.format(Locale.ROOT,
+                    "\"%s\":{\"readyMedianMs\":%.0f,\"readyMinMs\":%.0f,\"readyMaxMs\":%.0f,\"bootMedianSeconds\":%.3f}",
+                    variant[0], readyNanos[runs / 2] / 1e6, readyNanos[0] / 1e6, readyNanos[runs - 1] / 1e6,
+                    startedSeconds[runs / 2]);
+            System.out.println(line);
+            report.add(line);
+        }
+        Path output = Path.of("target", "startup-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report.toString());
+    }
+
+    /**
+     * @return the nanoseconds until the server answered, and the startup milliseconds Spring Boot logged (0 if none)
+     */
+    private static long[] startOnce(List<String> command, HttpClient client, int port) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/management/health"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        CompletableFuture<Double> started = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> readStartedSeconds(process, started));
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ": " + command);
+                }
+                if (System.nanoTime() - start > READY_TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Application not ready after " + READY_TIMEOUT + ": " + command);
+                }
+                try {
+                    client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    break;
+                } catch (IOException e) {
+                    Thread.sleep(10);
+                }
+            }
+            long ready = System.nanoTime() - start;
+            // Logged right after the server is up; a missing line counts as 0
+            Double bootSeconds = started.completeOnTimeout(0.0, 5, TimeUnit.SECONDS).join();
+            return new long[]{ready, Math.round(bootSeconds * 1e3)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void readStartedSeconds(Process process, CompletableFuture<Double> started) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            // Keep reading after the match so the child never blocks on a full pipe
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                Matcher matcher = STARTED.matcher(line);
+                if (!started.isDone() && matcher.find()) {
+                    started.complete(Double.parseDouble(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            // The process was stopped
+        }
+        started.complete(0.0);
+    }
+
+    private static boolean hasAotClasses(Path jar) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            return jarFile.stream().anyMatch(entry -> entry.getName().endsWith("__ApplicationContextInitializer.class"));
+        }
+    }
+}
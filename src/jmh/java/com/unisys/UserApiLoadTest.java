@@ -0,0 +1,113 @@
+package com.unisys;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test for comparing the platform-thread and virtual-thread execution modes.
+ * <p>
+ * Start the application once with {@code spring.threads.virtual.enabled=false} and once with {@code true}, and
+ * run this against each:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.unisys.UserApiLoadTest \
+ *     -Dbenchmark.args="http://localhost:9090 virtual 400 60 1000"
+ * </pre>
+ * Arguments: base URL, label, concurrent clients, duration in seconds, highest user ID to request. Each client
+ * requests {@code GET /users/{id}} for random IDs back to back. Throughput and latency percentiles are printed and
+ * written to {@code target/loadtest-<label>.json}.
+ * </p>
+ */
+public final class UserApiLoadTest {
+
+    private UserApiLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:9090";
+        String label = args.length > 1 ? args[1] : "run";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long durationNanos = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30).toNanos();
+        int maxId = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                results.add(workers.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long id = ThreadLocalRandom.current().nextLong(1, maxId + 1);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = results.stream().map(UserApiLoadTest::join).flatMapToLong(Arrays::stream).sorted().toArray();
+        String report = String.format(java.util.Locale.ROOT,
+                "{\"label\":\"%s\",\"clients\":%d,\"requests\":%d,\"errors\":%d,\"throughput\":%.1f,"
+                        + "\"p50Ms\":%.2f,\"p99Ms\":%.2f,\"maxMs\":%.2f}",
+                label, clients, all.length, errors.get(), all.length / elapsedSeconds,
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        System.out.println(report);
+        Path output = Path.of("target", "loadtest-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report);
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Load test client failed", e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,127 @@
+package com.unisys.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.messaging.SystemMessageConverter;
+import com.unisys.model.SystemMessage;
+
+import jakarta.jms.Connection;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+
+/**
+ * Messages per second published to an embedded broker over TCP: a new connection, session and producer per
+ * message (the original MessagePublisher behaviour) against the pooled MessagePublisher, synchronous and async.
+ * A listener drains the queue so broker flow control does not skew the numbers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MessagePublisherBenchmark {
+
+    private static final String QUEUE = "myqueue";
+
+    private BrokerService broker;
+    private Connection drainConnection;
+    private ActiveMQConnectionFactory rawConnectionFactory;
+    private Queue queue;
+    private MessagePublisher pooledPublisher;
+    private MessagePublisher asyncPublisher;
+    private SystemMessage systemMessage;
+
+    @Setup(Level.Trial)
+    public void startBroker() throws Exception {
+        broker = new BrokerService();
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.addConnector("tcp://localhost:0");
+        broker.start();
+        broker.waitUntilStarted();
+        String brokerUrl = broker.getTransportConnectors().get(0).getPublishableConnectString();
+
+        rawConnectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+        drainConnection = rawConnectionFactory.createConnection();
+        Session drainSession = drainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        queue = drainSession.createQueue(QUEUE);
+        MessageConsumer drain = drainSession.createConsumer(queue);
+        drain.setMessageListener(message -> { });
+        drainConnection.start();
+
+        pooledPublisher = publisher(brokerUrl, false);
+        asyncPublisher = publisher(brokerUrl, true);
+
+        systemMessage = new SystemMessage();
+        systemMessage.setSource("MessagePublisherBenchmark");
+        systemMessage.setMessage("New user created: benchmark");
+    }
+
+    private static MessagePublisher publisher(String brokerUrl, boolean asyncSend) {
+        MessagePublisher publisher = new MessagePublisher();
+        ReflectionTestUtils.setField(publisher, "brokerUrl", brokerUrl);
+        ReflectionTestUtils.setField(publisher, "username", null);
+        ReflectionTestUtils.setField(publisher, "password", null);
+        ReflectionTestUtils.setField(publisher, "connectionFactoryName", "ConnectionFactory");
+        ReflectionTestUtils.setField(publisher, "queueName", QUEUE);
+        ReflectionTestUtils.setField(publisher, "maxConnections", 1);
+        ReflectionTestUtils.setField(publisher, "maxSessionsPerConnection", 100);
+        ReflectionTestUtils.setField(publisher, "asyncSend", asyncSend);
+        ReflectionTestUtils.setField(publisher, "producerWindowBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(publisher, "messageConverter",
+                new SystemMessageConverter(new ObjectMapper(), "object"));
+        publisher.init();
+        return publisher;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopBroker() throws Exception {
+        pooledPublisher.close();
+        asyncPublisher.close();
+        drainConnection.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @Benchmark
+    public void connectionPerMessage() throws Exception {
+        try (Connection connection = rawConnectionFactory.createConnection()) {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createObjectMessage(systemMessage));
+        }
+    }
+
+    @Benchmark
+    public Object pooled() {
+        return pooledPublisher.publishMessage(systemMessage);
+    }
+
+    @Benchmark
+    public Object pooledAsync() {
+        return asyncPublisher.publishMessage(systemMessage);
+    }
+}
@@ -0,0 +1,79 @@
+package com.unisys.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+
+/**
+ * Pooled in-memory H2 database in MySQL mode with the application schema, for benchmarks.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    private static final String USERS_DDL = "CREATE TABLE users ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "username VARCHAR(255) NOT NULL, "
+            + "email VARCHAR(255) NOT NULL)";
+
+    private final BasicDataSource dataSource = new BasicDataSource();
+
+    public BenchmarkDatabase(String name, int users) throws SQLException, IOException {
+        dataSource.setUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setMaxTotal(20);
+        dataSource.setPoolPreparedStatements(true);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(USERS_DDL);
+            for (String script : new String[]{"db/users_version.sql", "db/users_unique.sql", "db/outbox.sql"}) {
+                for (String ddl : classpathSql(script).split(";")) {
+                    if (!ddl.replaceAll("--.*", "").isBlank()) {
+                        stmt.execute(ddl);
+                    }
+                }
+            }
+        }
+        seed(users);
+    }
+
+    private void seed(int users) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO users (username, email) VALUES (?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                ps.setString(1, "user" + i);
+                ps.setString(2, "user" + i + "@example.com");
+                ps.addBatch();
+                if (i % 1000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static String classpathSql(String path) throws IOException {
+        try (InputStream in = BenchmarkDatabase.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Missing " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+        dataSource.close();
+    }
+}
@@ -0,0 +1,114 @@
+package com.unisys.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+import com.unisys.model.UserCollectionVersion;
+import com.unisys.model.UserVersion;
+
+/**
+ * UserDao operations against a pooled in-memory H2 database in MySQL mode, seeded with {@value #USERS} users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDaoBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private BenchmarkDatabase database;
+    private UserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase("userdao", USERS);
+        userDao = new UserDao(database.dataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, USERS + 1);
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userDao.getUserById(randomId());
+    }
+
+    @Benchmark
+    public UserVersion getUserVersion() {
+        return userDao.getUserVersion(randomId());
+    }
+
+    @Benchmark
+    public UserCollectionVersion getCollectionVersion() {
+        return userDao.getCollectionVersion();
+    }
+
+    @Benchmark
+    public List<User> getUsersAfterPageOf100() {
+        return userDao.getUsersAfter(randomId() - 100, 100);
+    }
+
+    @Benchmark
+    public long countUsers() {
+        return userDao.countUsers();
+    }
+
+    @Benchmark
+    public boolean updateUser() {
+        long id = randomId();
+        return userDao.updateUser(id, new User(id, "user" + id, "user" + id + "@example.com"));
+    }
+
+    /**
+     * One write-behind flush of 100 coalesced updates; compare with 100 x {@link #updateUser()}.
+     */
+    @Benchmark
+    public List<UserBatchResult> updateUsersBatchOf100() {
+        long first = ThreadLocalRandom.current().nextLong(1, USERS - 100 + 2);
+        List<User> users = new ArrayList<>(100);
+        for (long id = first; id < first + 100; id++) {
+            users.add(new User(id, "user" + id, "user" + id + "@example.com"));
+        }
+        return userDao.updateUsers(users);
+    }
+
+    @Benchmark
+    public boolean createAndDeleteUser() {
+        User user = new User(null, "bench", "bench@example.com");
+        userDao.createUser(user);
+        return userDao.deleteUser(user.getId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamAllUsers(Blackhole blackhole) throws Exception {
+        return userDao.streamAllUsers(blackhole::consume);
+    }
+}
@@ -0,0 +1,96 @@
+package com.unisys.messaging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.model.SystemMessage;
+
+/**
+ * Encode and decode cost of a typical SystemMessage body: the binary and JSON codecs against Java serialization,
+ * which is what an ObjectMessage does internally. Encoded sizes are printed once per fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SystemMessageCodecBenchmark {
+
+    private final BinarySystemMessageCodec binary = new BinarySystemMessageCodec();
+    private final JsonSystemMessageCodec json = new JsonSystemMessageCodec(new ObjectMapper());
+
+    private SystemMessage systemMessage;
+    private byte[] binaryBody;
+    private byte[] jsonBody;
+    private byte[] serializedBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        systemMessage = new SystemMessage();
+        systemMessage.setSource("UserService");
+        systemMessage.setMessage("New user created: jane.doe");
+        binaryBody = binary.encode(systemMessage);
+        jsonBody = json.encode(systemMessage);
+        serializedBody = serialize(systemMessage);
+        System.out.printf("%nEncoded size (bytes): binary=%d json=%d java-serialization=%d%n",
+                binaryBody.length, jsonBody.length, serializedBody.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.encode(systemMessage);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return json.encode(systemMessage);
+    }
+
+    @Benchmark
+    public byte[] encodeJavaSerialization() throws IOException {
+        return serialize(systemMessage);
+    }
+
+    @Benchmark
+    public SystemMessage decodeBinary() throws IOException {
+        return binary.decode(binaryBody);
+    }
+
+    @Benchmark
+    public SystemMessage decodeJson() throws IOException {
+        return json.decode(jsonBody);
+    }
+
+    @Benchmark
+    public Object decodeJavaSerialization() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedBody))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] serialize(SystemMessage systemMessage) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(systemMessage);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.unisys.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unisys.dao.BenchmarkDatabase;
+import com.unisys.dao.UserDao;
+import com.unisys.model.User;
+
+/**
+ * Searches of the in-memory user index over {@value #USERS} users, compared with reading a page from H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchIndexBenchmark {
+
+    private static final int USERS = 100_000;
+
+    private BenchmarkDatabase database;
+    private UserDao userDao;
+    private UserSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase("usersearch", USERS);
+        userDao = new UserDao(database.dataSource());
+        index = new UserSearchIndex(userDao, null);
+        index.rebuild();
+        while (!index.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        index.stop();
+        database.close();
+    }
+
+    @Benchmark
+    public List<User> searchSelectiveSubstring() {
+        return index.search("er4242", false, 0, 100);
+    }
+
+    @Benchmark
+    public List<User> searchBroadSubstring() {
+        return index.search("user1", false, 0, 100);
+    }
+
+    @Benchmark
+    public List<User> searchShortPrefixMatchingEveryUser() {
+        return index.search("us", true, 0, 100);
+    }
+
+    @Benchmark
+    public List<User> getUsersAfterPageOf100() {
+        return userDao.getUsersAfter(50_000, 100);
+    }
+}
@@ -0,0 +1,167 @@
+package com.unisys.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.controller.MessagePublisher;
+import com.unisys.dao.BenchmarkDatabase;
+import com.unisys.dao.OutboxDao;
+import com.unisys.dao.UserDao;
+import com.unisys.messaging.SystemMessageConverter;
+import com.unisys.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.Connection;
+import jakarta.jms.Session;
+
+/**
+ * {@code UserService.createUser} end to end on H2 (MySQL mode): the request path alone, and the request path
+ * followed by outbox delivery through a no-op SMTP stand-in and an embedded broker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BrokerService broker;
+    private Connection drainConnection;
+    private CachingConnectionFactory cacheConnectionFactory;
+    private BenchmarkDatabase database;
+    private MessagePublisher messagePublisher;
+    private UserService userService;
+    private OutboxDispatcher outboxDispatcher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.addConnector("tcp://localhost:0");
+        broker.start();
+        broker.waitUntilStarted();
+        String brokerUrl = broker.getTransportConnectors().get(0).getPublishableConnectString();
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+        drainConnection = connectionFactory.createConnection();
+        Session drainSession = drainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        drainSession.createConsumer(drainSession.createQueue("myqueue")).setMessageListener(message -> { });
+        drainConnection.start();
+
+        messagePublisher = new MessagePublisher();
+        ReflectionTestUtils.setField(messagePublisher, "brokerUrl", brokerUrl);
+        ReflectionTestUtils.setField(messagePublisher, "connectionFactoryName", "ConnectionFactory");
+        ReflectionTestUtils.setField(messagePublisher, "queueName", "myqueue");
+        ReflectionTestUtils.setField(messagePublisher, "maxConnections", 1);
+        ReflectionTestUtils.setField(messagePublisher, "maxSessionsPerConnection", 100);
+        ReflectionTestUtils.setField(messagePublisher, "producerWindowBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(messagePublisher, "messageConverter",
+                new SystemMessageConverter(new ObjectMapper(), "binary"));
+        messagePublisher.init();
+
+        EmailService emailService = new EmailService(new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... simpleMessages) {
+                // SMTP stand-in: accept and drop
+            }
+        });
+
+        database = new BenchmarkDatabase("userservice", 1000);
+        // Spring Boot wraps the broker connection factory in a CachingConnectionFactory by default
+        cacheConnectionFactory = new CachingConnectionFactory(connectionFactory);
+        UserCache userCache = new UserCache(new JmsTemplate(cacheConnectionFactory),
+                10_000, 60_000, 5_000,
+                "users.cache.invalidate");
+        UserDao userDao = new UserDao(database.dataSource());
+        UsernameFilter usernameFilter = new UsernameFilter(userDao);
+        usernameFilter.rebuild();
+        while (!usernameFilter.isReady()) {
+            Thread.sleep(10);
+        }
+        userService = new UserService(userDao, userCache, null, new UserSearchIndex(userDao, userCache),
+                usernameFilter);
+
+        outboxDispatcher = new OutboxDispatcher(new OutboxDao(database.dataSource()), emailService, messagePublisher,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxDispatcher, "leaseMillis", 300_000L);
+        ReflectionTestUtils.setField(outboxDispatcher, "maxAttempts", 10);
+        ReflectionTestUtils.setField(outboxDispatcher, "baseBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(outboxDispatcher, "maxBackoffMillis", 300_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        messagePublisher.close();
+        drainConnection.close();
+        cacheConnectionFactory.destroy();
+        database.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainOutbox() {
+        while (outboxDispatcher.dispatchOnce() > 0) {
+            // Keep the outbox from growing across iterations of the request-path benchmark
+        }
+    }
+
+    private User newUser() {
+        long n = sequence.incrementAndGet();
+        return new User(null, "bench" + n, "bench" + n + "@example.com");
+    }
+
+    @Benchmark
+    public String createUser() {
+        return userService.createUser(newUser());
+    }
+
+    /**
+     * A retried create of an existing user, rejected by the uniqueness pre-check before any insert.
+     */
+    @Benchmark
+    public HttpStatusCode createDuplicateUser() {
+        long n = ThreadLocalRandom.current().nextLong(1, 1001);
+        try {
+            userService.createUser(new User(null, "user" + n, "user" + n + "@example.com"));
+            return HttpStatus.CREATED;
+        } catch (ResponseStatusException e) {
+            return e.getStatusCode();
+        }
+    }
+
+    @Benchmark
+    public int createUserAndDeliverNotifications() {
+        userService.createUser(newUser());
+        return outboxDispatcher.dispatchOnce();
+    }
+}
@@ -0,0 +1,113 @@
+package com.unisys.aspect;
+
+import java.util.concurrent.CompletionStage;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.unisys.tracing.RequestTracer;
+import com.unisys.tracing.Trace;
+import com.unisys.tracing.TraceScope;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Records trace spans for the controller, email and JMS stages, and logs controller failures.
+ * <p>
+ * Runs before every other aspect so the trace is bound before the access check records its span. A controller call
+ * starts the trace; an email or JMS call outside a request (e.g. from the outbox dispatcher) starts its own. For a
+ * controller method that returns a {@link CompletionStage}, the span and the trace end when the stage completes.
+ * </p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(TracingAspect.class);
+
+    private final RequestTracer tracer;
+
+    public TracingAspect(RequestTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Pointcut("execution(public * com.unisys.controller.UserResource.*(..))")
+    public void controllerMethods() {}
+
+    @Pointcut("execution(public * com.unisys.service.EmailService.send*(..))")
+    public void emailMethods() {}
+
+    @Pointcut("execution(public * com.unisys.controller.MessagePublisher.publish*(..))")
+    public void jmsMethods() {}
+
+    @Around("controllerMethods()")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        try {
+            Object result = trace(joinPoint, "controller");
+            if (result instanceof CompletionStage<?> pending) {
+                pending.whenComplete((response, error) -> logErrorResponse(joinPoint, response));
+            } else {
+                logErrorResponse(joinPoint, result);
+            }
+            return result;
+        } catch (WebApplicationException ex) {
+            if (ex.getResponse().getStatus() >= 500) {
+                logger.error("Exception in {}: {}", joinPoint.getSignature().toShortString(), ex.getMessage());
+            }
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Exception in {}: {}", joinPoint.getSignature().toShortString(), ex.getMessage());
+            throw ex;
+        }
+    }
+
+    private static void logErrorResponse(ProceedingJoinPoint joinPoint, Object result) {
+        if (result instanceof Response response && response.getStatus() >= 500) {
+            logger.error("Error response from {}: {}", joinPoint.getSignature().toShortString(), response.getStatus());
+        }
+    }
+
+    @Around("emailMethods()")
+    public Object traceEmail(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "email");
+    }
+
+    @Around("jmsMethods()")
+    public Object traceJms(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "jms");
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String stage) throws Throwable {
+        TraceScope scope = TraceScope.open(tracer, () -> joinPoint.getSignature().toShortString());
+        Trace trace = scope.trace();
+        long start = trace.isSampled() ? System.nanoTime() : 0;
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            if (result instanceof CompletionStage<?> pending) {
+                CompletionStage<?> recorded = pending.whenComplete((value, error) -> {
+                    if (trace.isSampled()) {
+                        trace.record(stage, joinPoint.getSignature().toShortString(), start, System.nanoTime());
+                    }
+                });
+                scope.closeWhenComplete(recorded);
+            } else {
+                if (trace.isSampled()) {
+                    trace.record(stage, joinPoint.getSignature().toShortString(), start, System.nanoTime());
+                }
+                scope.close();
+            }
+        }
+    }
+}
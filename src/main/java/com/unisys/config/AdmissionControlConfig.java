@@ -0,0 +1,53 @@
+package com.unisys.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The {@link ConcurrencyLimiter} of each endpoint that {@link AdmissionControlFilter} guards, configured under
+ * {@code admission.<endpoint>.limit} (initial limit, and the fixed limit if {@code admission.adaptive=false}),
+ * {@code .min-limit}, {@code .max-limit} and {@code .latency-threshold-ms}. {@code admission.admin-reserve} is the
+ * share of every limit kept for ADMIN writes.
+ */
+@Configuration
+public class AdmissionControlConfig {
+
+    @Value("${admission.adaptive:true}")
+    private boolean adaptive = true;
+
+    @Value("${admission.admin-reserve:0.2}")
+    private double adminReserve = 0.2;
+
+    @Bean
+    ConcurrencyLimiter usersLimiter(MeterRegistry meterRegistry,
+            @Value("${admission.users.limit:40}") int limit,
+            @Value("${admission.users.min-limit:4}") int minLimit,
+            @Value("${admission.users.max-limit:200}") int maxLimit,
+            @Value("${admission.users.latency-threshold-ms:500}") long latencyThresholdMs) {
+        return new ConcurrencyLimiter("users", limit, minLimit, maxLimit, latencyThresholdMs, adaptive, adminReserve,
+                meterRegistry);
+    }
+
+    @Bean
+    ConcurrencyLimiter publishLimiter(MeterRegistry meterRegistry,
+            @Value("${admission.publish.limit:20}") int limit,
+            @Value("${admission.publish.min-limit:2}") int minLimit,
+            @Value("${admission.publish.max-limit:100}") int maxLimit,
+            @Value("${admission.publish.latency-threshold-ms:250}") long latencyThresholdMs) {
+        return new ConcurrencyLimiter("publish", limit, minLimit, maxLimit, latencyThresholdMs, adaptive, adminReserve,
+                meterRegistry);
+    }
+
+    @Bean
+    ConcurrencyLimiter testLimiter(MeterRegistry meterRegistry,
+            @Value("${admission.test.limit:4}") int limit,
+            @Value("${admission.test.min-limit:1}") int minLimit,
+            @Value("${admission.test.max-limit:10}") int maxLimit,
+            @Value("${admission.test.latency-threshold-ms:1000}") long latencyThresholdMs) {
+        return new ConcurrencyLimiter("test", limit, minLimit, maxLimit, latencyThresholdMs, adaptive, adminReserve,
+                meterRegistry);
+    }
+}
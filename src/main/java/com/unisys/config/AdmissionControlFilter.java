@@ -0,0 +1,157 @@
+package com.unisys.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Sheds load per endpoint before a request is matched or its body is read.
+ * <p>
+ * Requests to {@code /users}, {@code /publish} and {@code /test} each count against the {@link ConcurrencyLimiter}
+ * of their first path segment. A request beyond the limit is answered at once with 503 and {@code Retry-After}
+ * ({@code admission.retry-after-seconds}) instead of queueing in Tomcat and the connection pool. ADMIN writes, i.e.
+ * requests with {@code X-Role: ADMIN} and a method other than GET, HEAD or OPTIONS, may use the share of each limit
+ * that is reserved for them; everything else is shed first. {@code admission.enabled=false} admits everything.
+ * </p>
+ * <p>
+ * An admitted request holds its place until Jersey has finished it, also when it completes asynchronously or fails.
+ * Its latency up to the response being ready, and whether it was shed with 503 further down, feed the adaptive
+ * limits. Bulk endpoints listed in {@code admission.unsampled-paths} (import, batch create and export by default)
+ * still count against the limit but do not feed it: they are slow by design, so one import would otherwise shrink
+ * the limit of every other {@code /users} request.
+ * </p>
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 100)
+@Component
+public class AdmissionControlFilter implements ContainerRequestFilter, ApplicationEventListener {
+
+    private static final String PERMIT = AdmissionControlFilter.class.getName() + ".permit";
+    private static final String ADMIN_ROLE = "ADMIN";
+    private static final String ROLE_HEADER = "X-Role";
+    private static final String OVERLOADED_MESSAGE = "The server is overloaded, please retry";
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${admission.retry-after-seconds:1}")
+    private String retryAfterSeconds = "1";
+
+    // Paths without the leading slash
+    @Value("${admission.unsampled-paths:users/import,users/batch,users/export}")
+    private Set<String> unsampledPaths = Set.of("users/import", "users/batch", "users/export");
+
+    private final Map<String, ConcurrencyLimiter> limiters = new HashMap<>();
+    private final RequestEventListener releaseOnFinish = this::onRequestEvent;
+
+    public AdmissionControlFilter(List<ConcurrencyLimiter> limiters) {
+        for (ConcurrencyLimiter limiter : limiters) {
+            this.limiters.put(limiter.getEndpoint(), limiter);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        if (!enabled) {
+            return;
+        }
+        String path = request.getUriInfo().getPath();
+        ConcurrencyLimiter limiter = limiters.get(firstSegment(path));
+        if (limiter == null) {
+            return;
+        }
+        if (!limiter.tryAcquire(isAdminWrite(request))) {
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                    .entity(OVERLOADED_MESSAGE)
+                    .build());
+            return;
+        }
+        request.setProperty(PERMIT, new Permit(limiter, !unsampledPaths.contains(trimSlashes(path)), System.nanoTime()));
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent event) {
+        return releaseOnFinish;
+    }
+
+    private void onRequestEvent(RequestEvent event) {
+        if (event.getType() != RequestEvent.Type.RESP_FILTERS_START && event.getType() != RequestEvent.Type.FINISHED) {
+            return;
+        }
+        ContainerRequest request = event.getContainerRequest();
+        if (!(request.getProperty(PERMIT) instanceof Permit permit)) {
+            return;
+        }
+        if (event.getType() == RequestEvent.Type.RESP_FILTERS_START) {
+            // Measured before the entity is written, so a slow client does not read as a slow endpoint
+            permit.readyNanos = System.nanoTime();
+            permit.status = event.getContainerResponse().getStatus();
+            return;
+        }
+        request.removeProperty(PERMIT);
+        if (!permit.sampled) {
+            permit.limiter.releaseUnsampled();
+            return;
+        }
+        long end = permit.readyNanos != 0 ? permit.readyNanos : System.nanoTime();
+        permit.limiter.release(end - permit.startNanos,
+                permit.status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+    }
+
+    private static boolean isAdminWrite(ContainerRequestContext request) {
+        String method = request.getMethod();
+        return ADMIN_ROLE.equalsIgnoreCase(request.getHeaderString(ROLE_HEADER))
+                && !HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method);
+    }
+
+    private static String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static String trimSlashes(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.length() > start && path.endsWith("/") ? path.length() - 1 : path.length();
+        return path.substring(start, end);
+    }
+
+    private static final class Permit {
+        private final ConcurrencyLimiter limiter;
+        private final boolean sampled;
+        private final long startNanos;
+        private long readyNanos;
+        private int status;
+
+        Permit(ConcurrencyLimiter limiter, boolean sampled, long startNanos) {
+            this.limiter = limiter;
+            this.sampled = sampled;
+            this.startNanos = startNanos;
+        }
+    }
+}
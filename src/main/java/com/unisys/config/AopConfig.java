@@ -1,12 +1,10 @@
 package com.unisys.config;
 
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 
 @Configuration
 @EnableAspectJAutoProxy
-@ComponentScan(basePackages = "com.unisys")  // Scan the packages for beans
 public class AopConfig {
     // This class enables AOP in the application
 }
@@ -0,0 +1,55 @@
+package com.unisys.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.unisys.service.CircuitBreaker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The {@link CircuitBreaker}s around the mail server and the broker.
+ * <p>
+ * Shared settings: {@code circuit-breaker.window-size} recorded calls, {@code .minimum-calls} before the rates are
+ * judged, {@code .failure-rate-threshold} and {@code .slow-call-rate-threshold} in percent, and
+ * {@code .half-open-calls} trial calls. Per integration: {@code circuit-breaker.<name>.slow-call-ms},
+ * {@code .open-ms} and {@code .max-concurrent-calls} (the bulkhead).
+ * </p>
+ */
+@Configuration
+public class CircuitBreakerConfig {
+
+    @Value("${circuit-breaker.window-size:20}")
+    private int windowSize = 20;
+
+    @Value("${circuit-breaker.minimum-calls:10}")
+    private int minimumCalls = 10;
+
+    @Value("${circuit-breaker.failure-rate-threshold:50}")
+    private double failureRateThreshold = 50;
+
+    @Value("${circuit-breaker.slow-call-rate-threshold:80}")
+    private double slowCallRateThreshold = 80;
+
+    @Value("${circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls = 3;
+
+    @Bean
+    CircuitBreaker mailCircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${circuit-breaker.mail.slow-call-ms:3000}") long slowCallMillis,
+            @Value("${circuit-breaker.mail.open-ms:30000}") long openMillis,
+            @Value("${circuit-breaker.mail.max-concurrent-calls:8}") int maxConcurrentCalls) {
+        return new CircuitBreaker("mail", windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallMillis, openMillis, halfOpenCalls, maxConcurrentCalls, meterRegistry);
+    }
+
+    @Bean
+    CircuitBreaker brokerCircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${circuit-breaker.broker.slow-call-ms:1000}") long slowCallMillis,
+            @Value("${circuit-breaker.broker.open-ms:15000}") long openMillis,
+            @Value("${circuit-breaker.broker.max-concurrent-calls:20}") int maxConcurrentCalls) {
+        return new CircuitBreaker("broker", windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallMillis, openMillis, halfOpenCalls, maxConcurrentCalls, meterRegistry);
+    }
+}
@@ -0,0 +1,146 @@
+package com.unisys.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limit on the requests one endpoint handles at once, fixed or adapted to its latency.
+ * <p>
+ * An adaptive limit follows AIMD: a request that took longer than the latency threshold, or that was shed further
+ * down with 503, shrinks the limit by {@value #BACKOFF_RATIO}; a fast request completing while at least half of the
+ * limit is in use grows it by one. The limit stays between the minimum and maximum. A share of the limit is reserved
+ * for priority requests: other requests are turned away once the unreserved part is in use.
+ * </p>
+ * <p>
+ * Metrics, tagged {@code endpoint}: {@code admission.limit}, {@code admission.inflight},
+ * {@code admission.rejected} (also tagged {@code priority}) and {@code admission.limit.changes} (tagged
+ * {@code direction}).
+ * </p>
+ */
+public class ConcurrencyLimiter {
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final String endpoint;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final boolean adaptive;
+    private final double reservedShare;
+
+    private double limit;
+    private int inFlight;
+
+    private final Counter rejectedPriority;
+    private final Counter rejectedOther;
+    private final Counter increases;
+    private final Counter decreases;
+
+    /**
+     * @param initialLimit       the limit to start from, and the fixed limit if not adaptive
+     * @param latencyThresholdMs latency above which a request counts as a sign of overload
+     * @param reservedShare      share of the limit only priority requests may use, between 0 and 1
+     */
+    public ConcurrencyLimiter(String endpoint, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs,
+                              boolean adaptive, double reservedShare, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits of endpoint " + endpoint + " must satisfy 1 <= min <= initial <= max");
+        }
+        if (reservedShare < 0 || reservedShare >= 1) {
+            throw new IllegalArgumentException("Reserved share of endpoint " + endpoint + " must be at least 0 and below 1");
+        }
+        this.endpoint = endpoint;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.adaptive = adaptive;
+        this.reservedShare = reservedShare;
+        this.limit = initialLimit;
+        Gauge.builder("admission.limit", this, ConcurrencyLimiter::getLimit)
+                .description("Requests the endpoint admits at once")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("admission.inflight", this, ConcurrencyLimiter::getInFlight)
+                .description("Requests the endpoint is handling")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        this.rejectedPriority = rejected(meterRegistry, endpoint, "high");
+        this.rejectedOther = rejected(meterRegistry, endpoint, "normal");
+        this.increases = limitChanges(meterRegistry, endpoint, "increase");
+        this.decreases = limitChanges(meterRegistry, endpoint, "decrease");
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Admits a request if the limit allows it. Every admitted request must be {@linkplain #release released}.
+     *
+     * @param priority whether the request may use the reserved share of the limit
+     */
+    public synchronized boolean tryAcquire(boolean priority) {
+        int allowed = priority ? (int) limit : Math.max(1, (int) (limit * (1 - reservedShare)));
+        if (inFlight >= allowed) {
+            (priority ? rejectedPriority : rejectedOther).increment();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * @param latencyNanos time the request took until its response was ready
+     * @param shed         whether the request was turned away further down because of overload
+     */
+    public synchronized void release(long latencyNanos, boolean shed) {
+        int inUse = inFlight--;
+        if (!adaptive) {
+            return;
+        }
+        if (shed || latencyNanos > latencyThresholdNanos) {
+            double decreased = Math.max(minLimit, limit * BACKOFF_RATIO);
+            if ((int) decreased < (int) limit) {
+                decreases.increment();
+            }
+            limit = decreased;
+        } else if (inUse * 2 >= limit && limit < maxLimit) {
+            limit = Math.min(maxLimit, limit + 1);
+            increases.increment();
+        }
+    }
+
+    /**
+     * Releases a request without adapting the limit, for requests whose latency says nothing about overload.
+     */
+    public synchronized void releaseUnsampled() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private static Counter rejected(MeterRegistry registry, String endpoint, String priority) {
+        return Counter.builder("admission.rejected")
+                .description("Requests turned away because the endpoint was at its concurrency limit")
+                .tag("endpoint", endpoint)
+                .tag("priority", priority)
+                .register(registry);
+    }
+
+    private static Counter limitChanges(MeterRegistry registry, String endpoint, String direction) {
+        return Counter.builder("admission.limit.changes")
+                .description("Adjustments of the endpoint's adaptive concurrency limit")
+                .tag("endpoint", endpoint)
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
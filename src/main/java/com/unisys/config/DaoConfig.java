@@ -0,0 +1,41 @@
+package com.unisys.config;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.unisys.dao.OutboxDao;
+import com.unisys.dao.UserDao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The DAOs, one instance each for the whole application.
+ * <p>
+ * They are given the lazily resolved JNDI DataSource of {@link JndiConfig}, so creating them costs no naming lookup
+ * and no connection; {@code jdbc/student} is looked up once, on the first query. The read replicas
+ * ({@code jdbc/student-replica}) are only wired when {@code jndi.datasource.replica.urls} is set.
+ * </p>
+ */
+@Configuration
+public class DaoConfig {
+
+    @Value("${jndi.datasource.replica.urls:}")
+    private String replicaUrls = "";
+
+    @Bean
+    UserDao userDao(DataSource dataSource, MeterRegistry meterRegistry) throws NamingException {
+        DataSource replicas = replicaUrls.isBlank()
+                ? null
+                : JndiConfig.lazyLookup("java:comp/env/" + ReplicaDataSourceFactory.POOL_NAME);
+        return new UserDao(dataSource, replicas, meterRegistry);
+    }
+
+    @Bean
+    OutboxDao outboxDao(DataSource dataSource) {
+        return new OutboxDao(dataSource);
+    }
+}
@@ -0,0 +1,28 @@
+package com.unisys.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.unisys.service.DownstreamExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One {@link DownstreamExecutor} per downstream, each sized and timed out on its own under
+ * {@code executors.<name>.threads}, {@code .queue-capacity} and {@code .timeout-ms}. The {@code database} executor
+ * runs the JDBC calls of the asynchronous {@code /users} resource methods, with as many threads as the connection
+ * pool has connections, since further threads would only wait for a connection. Mail and broker calls need no pool
+ * of their own: notifications are written to the outbox and delivered by the {@code OutboxDispatcher}.
+ */
+@Configuration
+public class DownstreamExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    DownstreamExecutor databaseExecutor(MeterRegistry meterRegistry,
+            @Value("${executors.database.threads:${jndi.datasource.pool.max-total:20}}") int threads,
+            @Value("${executors.database.queue-capacity:200}") int queueCapacity,
+            @Value("${executors.database.timeout-ms:10000}") long timeoutMillis) {
+        return new DownstreamExecutor("database", threads, queueCapacity, timeoutMillis, meterRegistry);
+    }
+}
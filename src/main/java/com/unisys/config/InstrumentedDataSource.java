@@ -0,0 +1,200 @@
+package com.unisys.config;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.apache.tomcat.dbcp.pool2.impl.GenericObjectPool;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link DataSource} decorator around a DBCP2 pool: the one behind {@code jdbc/student}, or one replica pool of
+ * {@code jdbc/student-replica}.
+ * <p>
+ * It times every connection borrow and tracks the connections currently handed out, which lets it publish:
+ * <ul>
+ *   <li>{@code jndi.pool.active}, {@code jndi.pool.idle}, {@code jndi.pool.max}, {@code jndi.pool.waiters}</li>
+ *   <li>{@code jndi.pool.borrow} - a histogram of the time spent waiting for a connection</li>
+ *   <li>{@code jndi.pool.leak.suspects} - connections held longer than the abandoned timeout right now</li>
+ *   <li>{@code jndi.pool.leaks} - connections returned only after exceeding the abandoned timeout</li>
+ * </ul>
+ * Until {@link #bindTo(MeterRegistry)} is called nothing is recorded.
+ * </p>
+ */
+public class InstrumentedDataSource implements DataSource, MeterBinder {
+
+    private static final String POOL_NAME = "jdbc/student";
+
+    private final BasicDataSource delegate;
+    private final String poolName;
+    private final Map<LeaseHandler, Long> leases = new ConcurrentHashMap<>();
+    private final LongAdder lateReturns = new LongAdder();
+
+    private volatile Timer borrowTimer;
+
+    public InstrumentedDataSource(BasicDataSource delegate) {
+        this(delegate, POOL_NAME);
+    }
+
+    /**
+     * @param poolName value of the {@code name} tag on the pool meters
+     */
+    public InstrumentedDataSource(BasicDataSource delegate, String poolName) {
+        this.delegate = delegate;
+        this.poolName = poolName;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        return lease(delegate.getConnection(), start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        return lease(delegate.getConnection(username, password), start);
+    }
+
+    private Connection lease(Connection connection, long borrowStart) {
+        long borrowed = System.nanoTime();
+        Timer timer = borrowTimer;
+        if (timer != null) {
+            timer.record(borrowed - borrowStart, TimeUnit.NANOSECONDS);
+        }
+        LeaseHandler handler = new LeaseHandler(connection);
+        leases.put(handler, borrowed);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * Returns the underlying DBCP2 pool.
+     */
+    public BasicDataSource getPool() {
+        return delegate;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("name", poolName);
+        Gauge.builder("jndi.pool.active", delegate, BasicDataSource::getNumActive)
+                .tags(tags).description("Connections currently borrowed from the pool").register(registry);
+        Gauge.builder("jndi.pool.idle", delegate, BasicDataSource::getNumIdle)
+                .tags(tags).description("Idle connections in the pool").register(registry);
+        Gauge.builder("jndi.pool.max", delegate, BasicDataSource::getMaxTotal)
+                .tags(tags).description("Maximum number of pooled connections").register(registry);
+        Gauge.builder("jndi.pool.waiters", delegate, InstrumentedDataSource::waiters)
+                .tags(tags).description("Threads blocked waiting for a connection").register(registry);
+        Gauge.builder("jndi.pool.leak.suspects", this, InstrumentedDataSource::leakSuspects)
+                .tags(tags).description("Connections held longer than the abandoned timeout").register(registry);
+        FunctionCounter.builder("jndi.pool.leaks", lateReturns, LongAdder::sum)
+                .tags(tags).description("Connections returned after exceeding the abandoned timeout").register(registry);
+        borrowTimer = Timer.builder("jndi.pool.borrow")
+                .tags(tags)
+                .description("Time spent waiting to borrow a connection")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofMillis(Math.max(delegate.getMaxWaitMillis(), 1000)))
+                .register(registry);
+    }
+
+    private static double waiters(BasicDataSource dataSource) {
+        GenericObjectPool<?> pool = dataSource.getConnectionPool();
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+
+    private double leakSuspects() {
+        long threshold = leakThresholdNanos();
+        long now = System.nanoTime();
+        return leases.values().stream().filter(borrowed -> now - borrowed > threshold).count();
+    }
+
+    private long leakThresholdNanos() {
+        return TimeUnit.SECONDS.toNanos(delegate.getRemoveAbandonedTimeout());
+    }
+
+    /**
+     * Forwards every call to the pooled connection and ends the lease when it is closed.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private LeaseHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName())) {
+                Long borrowed = leases.remove(this);
+                if (borrowed != null && System.nanoTime() - borrowed > leakThresholdNanos()) {
+                    lateReturns.increment();
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
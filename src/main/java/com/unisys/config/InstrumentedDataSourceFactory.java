@@ -0,0 +1,29 @@
+package com.unisys.config;
+
+import java.util.Hashtable;
+
+import javax.naming.Context;
+import javax.naming.Name;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSourceFactory;
+
+/**
+ * JNDI object factory for {@code jdbc/student}.
+ * <p>
+ * Builds the regular DBCP2 {@link BasicDataSource} from the resource properties and hands it out wrapped in an
+ * {@link InstrumentedDataSource}, so every lookup of the resource shares the same borrow timing and leak tracking.
+ * </p>
+ */
+public class InstrumentedDataSourceFactory extends BasicDataSourceFactory {
+
+    @Override
+    public Object getObjectInstance(Object obj, Name name, Context nameCtx, Hashtable<?, ?> environment)
+            throws java.sql.SQLException {
+        Object dataSource = super.getObjectInstance(obj, name, nameCtx, environment);
+        if (dataSource instanceof BasicDataSource basicDataSource) {
+            return new InstrumentedDataSource(basicDataSource);
+        }
+        return dataSource;
+    }
+}
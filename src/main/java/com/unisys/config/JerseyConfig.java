@@ -17,5 +17,7 @@ public class JerseyConfig extends ResourceConfig {
         register(JndiTestController.class);
         register(MessagePublisher.class);
         register(SecurityExceptionMapper.class);
+        register(ReadYourWritesFilter.class);
+        register(AdmissionControlFilter.class);
     }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.unisys.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jms.annotation.EnableJms;
 import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 
+import com.unisys.messaging.SystemMessageConverter;
+
 import jakarta.jms.ConnectionFactory;
 
 
@@ -14,15 +18,43 @@ import jakarta.jms.ConnectionFactory;
 @EnableJms
 public class JmsConfig {
 
+    /**
+     * Consumer count range for {@code myqueue} as {@code min-max}; the container adds consumers while messages
+     * keep arriving and retires idle ones.
+     */
+    @Value("${jms.consumer.concurrency:5-10}")
+    private String concurrency;
+
     @Bean
     DefaultJmsListenerContainerFactory jmsListenerContainerFactory(
+            DefaultJmsListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory, SystemMessageConverter systemMessageConverter) {
+
+        DefaultJmsListenerContainerFactory factory
+                = new DefaultJmsListenerContainerFactory();
+
+        // Applies spring.jms.listener.* and, with spring.threads.virtual.enabled, a virtual-thread task executor
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrency(concurrency);
+        factory.setMessageConverter(systemMessageConverter);
+
+        return factory;
+    }
+
+    /**
+     * Listener factory for topics, where every node receives every message (e.g. cache invalidations).
+     */
+    @Bean
+    DefaultJmsListenerContainerFactory topicListenerFactory(
+            DefaultJmsListenerContainerFactoryConfigurer configurer,
             ConnectionFactory connectionFactory) {
 
         DefaultJmsListenerContainerFactory factory
                 = new DefaultJmsListenerContainerFactory();
 
-        factory.setConnectionFactory(connectionFactory);
-        factory.setConcurrency("5-10");
+        configurer.configure(factory, connectionFactory);
+        factory.setPubSubDomain(true);
+        factory.setConcurrency("1");
 
         return factory;
     }
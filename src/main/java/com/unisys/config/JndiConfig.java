@@ -5,12 +5,16 @@ import javax.sql.DataSource;
 
 import org.apache.catalina.Context;
 import org.apache.tomcat.util.descriptor.web.ContextResource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jndi.JndiObjectFactoryBean;
+import org.springframework.jndi.JndiTemplate;
 /**
  * Configuration class to set up JNDI DataSource for Spring Boot application using embedded Tomcat.
  * <p>
@@ -20,12 +24,18 @@ import org.springframework.jndi.JndiObjectFactoryBean;
  *   <li>{@link DataSource} bean uses JNDI to provide database connection pooling, making it available for Spring's dependency injection.</li>
  * </ul>
  * The database connection properties such as driver, URL, username, and password are injected from the application properties
- * using the {@link Value} annotation.
+ * using the {@link Value} annotation, and the DBCP2 pool settings from {@code jndi.datasource.pool.*}.
+ * </p>
+ * <p>
+ * If {@code jndi.datasource.replica.urls} is set, a second resource, {@code jdbc/student-replica}, is bound with one pool
+ * per replica URL (see {@link ReplicaDataSourceFactory}). {@code UserDao} sends its reads there (see {@link DaoConfig}).
  * </p>
  */
 @Configuration
 public class JndiConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(JndiConfig.class);
+
     /**
      * The fully qualified name of the JDBC driver class to use for the database connection.
      * Injected from the application properties file.
@@ -51,6 +61,126 @@ public class JndiConfig {
     @Value("${jndi.datasource.password}")
     private String password;
 
+    /**
+     * Maximum number of connections the pool may hold, borrowed and idle together.
+     */
+    @Value("${jndi.datasource.pool.max-total:20}")
+    private int maxTotal;
+
+    /**
+     * Maximum number of idle connections kept in the pool.
+     */
+    @Value("${jndi.datasource.pool.max-idle:10}")
+    private int maxIdle;
+
+    /**
+     * Minimum number of idle connections the evictor keeps warm.
+     */
+    @Value("${jndi.datasource.pool.min-idle:2}")
+    private int minIdle;
+
+    /**
+     * Number of connections opened when the pool is first used.
+     */
+    @Value("${jndi.datasource.pool.initial-size:2}")
+    private int initialSize;
+
+    /**
+     * How long a caller waits for a free connection before failing, in milliseconds.
+     */
+    @Value("${jndi.datasource.pool.max-wait-ms:5000}")
+    private long maxWaitMillis;
+
+    /**
+     * Query used to validate connections; an empty value falls back to {@code Connection.isValid()}.
+     */
+    @Value("${jndi.datasource.pool.validation-query:SELECT 1}")
+    private String validationQuery;
+
+    /**
+     * Timeout for the validation query, in seconds.
+     */
+    @Value("${jndi.datasource.pool.validation-query-timeout-seconds:2}")
+    private int validationQueryTimeout;
+
+    /**
+     * Whether connections are validated on every borrow (one extra round trip per borrow).
+     */
+    @Value("${jndi.datasource.pool.test-on-borrow:false}")
+    private boolean testOnBorrow;
+
+    /**
+     * Whether idle connections are validated by the evictor.
+     */
+    @Value("${jndi.datasource.pool.test-while-idle:true}")
+    private boolean testWhileIdle;
+
+    /**
+     * Interval between evictor runs, which validate and evict idle connections, in milliseconds.
+     */
+    @Value("${jndi.datasource.pool.validation-interval-ms:30000}")
+    private long validationIntervalMillis;
+
+    /**
+     * Idle time after which a connection may be evicted, in milliseconds.
+     */
+    @Value("${jndi.datasource.pool.min-evictable-idle-ms:60000}")
+    private long minEvictableIdleMillis;
+
+    /**
+     * Whether connections held longer than {@link #removeAbandonedTimeout} are reclaimed.
+     */
+    @Value("${jndi.datasource.pool.remove-abandoned:true}")
+    private boolean removeAbandoned;
+
+    /**
+     * Time after which a borrowed connection counts as abandoned (and as a leak), in seconds.
+     */
+    @Value("${jndi.datasource.pool.remove-abandoned-timeout-seconds:60}")
+    private int removeAbandonedTimeout;
+
+    /**
+     * Whether the stack trace of the code that borrowed an abandoned connection is logged.
+     */
+    @Value("${jndi.datasource.pool.log-abandoned:true}")
+    private boolean logAbandoned;
+
+    /**
+     * Whether prepared statements are pooled per connection.
+     */
+    @Value("${jndi.datasource.pool.pool-prepared-statements:true}")
+    private boolean poolPreparedStatements;
+
+    /**
+     * Maximum number of pooled prepared statements per connection.
+     */
+    @Value("${jndi.datasource.pool.max-open-prepared-statements:100}")
+    private int maxOpenPreparedStatements;
+
+    /**
+     * Comma-separated JDBC URLs of the read replicas; empty means reads go to the primary.
+     */
+    @Value("${jndi.datasource.replica.urls:}")
+    private String replicaUrls;
+
+    /**
+     * How a replica is picked per connection: {@code round-robin} or {@code least-connections}.
+     */
+    @Value("${jndi.datasource.replica.selection:round-robin}")
+    private String replicaSelection;
+
+    /**
+     * The replica username, by default the primary's.
+     */
+    @Value("${jndi.datasource.replica.username:${jndi.datasource.username}}")
+    private String replicaUsername;
+
+    /**
+     * The replica password, by default the primary's.
+     */
+    @Value("${jndi.datasource.replica.password:${jndi.datasource.password}}")
+    private String replicaPassword;
+
     /**
      * Configures the Tomcat servlet web server to enable JNDI naming and define the DataSource as a resource.
      * <p>
@@ -75,25 +205,65 @@ public class JndiConfig {
             }
 
             /**
-             * Adds the DataSource as a resource to the Tomcat context.
-             * This resource will be looked up via JNDI in the application.
+             * Adds the DataSource, and the read replica DataSource if configured, as resources to the Tomcat context.
+             * These resources will be looked up via JNDI in the application.
              *
              * @param context the Tomcat context to post-process
              */
             @Override
             protected void postProcessContext(Context context) {
-                ContextResource resource = new ContextResource();
-                resource.setName("jdbc/student"); // JNDI name for the resource
-                resource.setType(DataSource.class.getName()); // The type of the resource
-                resource.setProperty("driverClassName", driverClassName); // JDBC driver class name
+                ContextResource resource = poolResource("jdbc/student", username, password); // JNDI name for the resource
                 resource.setProperty("url", dataSourceUrl); // Database URL
-                resource.setProperty("username", username); // Database username
-                resource.setProperty("password", password); // Database password
+                resource.setProperty("factory", InstrumentedDataSourceFactory.class.getName()); // DBCP2 pool with metrics
                 context.getNamingResources().addResource(resource); // Add resource to context
+
+                if (!replicaUrls.isBlank()) {
+                    ContextResource replicas = poolResource(ReplicaDataSourceFactory.POOL_NAME, replicaUsername, replicaPassword);
+                    replicas.setProperty("urls", replicaUrls); // One pool per replica URL
+                    replicas.setProperty("selection", replicaSelection);
+                    replicas.setProperty("factory", ReplicaDataSourceFactory.class.getName());
+                    replicas.setProperty("defaultReadOnly", "true");
+                    // Validate on borrow with a driver ping, so a dead replica fails before a query is sent to it
+                    replicas.setProperty("testOnBorrow", "true");
+                    replicas.removeProperty("validationQuery");
+                    context.getNamingResources().addResource(replicas);
+                }
             }
         };
     }
 
+    /**
+     * Builds a JNDI DataSource resource with the shared driver and {@code jndi.datasource.pool.*} settings.
+     */
+    private ContextResource poolResource(String name, String username, String password) {
+        ContextResource resource = new ContextResource();
+        resource.setName(name);
+        resource.setType(DataSource.class.getName()); // The type of the resource
+        resource.setProperty("driverClassName", driverClassName); // JDBC driver class name
+        resource.setProperty("username", username); // Database username
+        resource.setProperty("password", password); // Database password
+        resource.setProperty("maxTotal", String.valueOf(maxTotal));
+        resource.setProperty("maxIdle", String.valueOf(maxIdle));
+        resource.setProperty("minIdle", String.valueOf(minIdle));
+        resource.setProperty("initialSize", String.valueOf(initialSize));
+        resource.setProperty("maxWaitMillis", String.valueOf(maxWaitMillis));
+        if (validationQuery != null && !validationQuery.isBlank()) {
+            resource.setProperty("validationQuery", validationQuery);
+        }
+        resource.setProperty("validationQueryTimeout", String.valueOf(validationQueryTimeout));
+        resource.setProperty("testOnBorrow", String.valueOf(testOnBorrow));
+        resource.setProperty("testWhileIdle", String.valueOf(testWhileIdle));
+        resource.setProperty("timeBetweenEvictionRunsMillis", String.valueOf(validationIntervalMillis));
+        resource.setProperty("minEvictableIdleTimeMillis", String.valueOf(minEvictableIdleMillis));
+        resource.setProperty("removeAbandonedOnBorrow", String.valueOf(removeAbandoned));
+        resource.setProperty("removeAbandonedOnMaintenance", String.valueOf(removeAbandoned));
+        resource.setProperty("removeAbandonedTimeout", String.valueOf(removeAbandonedTimeout));
+        resource.setProperty("logAbandoned", String.valueOf(logAbandoned));
+        resource.setProperty("poolPreparedStatements", String.valueOf(poolPreparedStatements));
+        resource.setProperty("maxOpenPreparedStatements", String.valueOf(maxOpenPreparedStatements));
+        return resource;
+    }
+
     /**
      * Defines a {@link DataSource} bean that performs a JNDI lookup for the database connection.
      * <p>
@@ -107,11 +277,64 @@ public class JndiConfig {
      */
     @Bean
     DataSource jndiDataSource() throws IllegalArgumentException, NamingException {
+        return lazyLookup("java:comp/env/jdbc/student");
+    }
+
+    /**
+     * Returns a proxy that looks up the named DataSource on first use and caches it, so beans holding it can be
+     * created before, and without waiting for, the JNDI resource.
+     *
+     * @param jndiName the JNDI name of the DataSource
+     * @return the lazily resolved DataSource
+     * @throws NamingException if the proxy cannot be created.
+     */
+    static DataSource lazyLookup(String jndiName) throws NamingException {
         JndiObjectFactoryBean bean = new JndiObjectFactoryBean();
-        bean.setJndiName("java:comp/env/jdbc/student"); // JNDI name to look up the DataSource
+        bean.setJndiName(jndiName); // JNDI name to look up the DataSource
         bean.setProxyInterface(DataSource.class); // Proxy interface for DataSource
         bean.setLookupOnStartup(false); // Avoid lookup on startup
         bean.afterPropertiesSet(); // Initialize the JNDI lookup
         return (DataSource) bean.getObject(); // Return the DataSource from JNDI lookup
     }
+
+    /**
+     * Publishes the pool gauges, borrow-wait histogram and leak counters of the JNDI DataSource to Actuator.
+     *
+     * @param dataSource the JNDI DataSource
+     * @return a binder that registers the pool meters once the registry is ready
+     */
+    @Bean
+    MeterBinder jndiDataSourcePoolMetrics(DataSource dataSource) {
+        return registry -> {
+            try {
+                if (dataSource.isWrapperFor(InstrumentedDataSource.class)) {
+                    dataSource.unwrap(InstrumentedDataSource.class).bindTo(registry);
+                }
+            } catch (Exception e) {
+                logger.warn("JNDI DataSource pool metrics unavailable: {}", e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Publishes the pool meters of every read replica, tagged {@code jdbc/student-replica[n]}, when replicas are configured.
+     *
+     * @return a binder that registers the replica pool meters once the registry is ready
+     */
+    @Bean
+    MeterBinder jndiReplicaPoolMetrics() {
+        return registry -> {
+            if (replicaUrls.isBlank()) {
+                return;
+            }
+            try {
+                Object replicas = new JndiTemplate().lookup("java:comp/env/" + ReplicaDataSourceFactory.POOL_NAME);
+                if (replicas instanceof ReplicaDataSource replicaDataSource) {
+                    replicaDataSource.bindTo(registry);
+                }
+            } catch (Exception e) {
+                logger.warn("Read replica pool metrics unavailable: {}", e.getMessage());
+            }
+        };
+    }
 }
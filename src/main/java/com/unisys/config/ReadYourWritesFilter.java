@@ -0,0 +1,67 @@
+package com.unisys.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.unisys.dao.ReadYourWrites;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Carries the read-your-writes window between a caller's requests.
+ * <p>
+ * When a request writes through {@code UserDao}, the response sets a {@value #COOKIE} cookie holding the time until
+ * which that caller's reads must go to the primary. Requests presenting a cookie that has not expired yet are
+ * {@linkplain ReadYourWrites#begin(long) pinned} to the primary. The window is
+ * {@code jndi.datasource.replica.read-your-writes-ms}; {@code 0} disables it. Asynchronous resource methods write on
+ * a {@code DownstreamExecutor} thread, which also runs this filter when it completes the response and so sees their
+ * writes.
+ * </p>
+ */
+@Provider
+@Component
+public class ReadYourWritesFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String COOKIE = "primary-until";
+
+    @Value("${jndi.datasource.replica.read-your-writes-ms:2000}")
+    private long windowMillis;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        ReadYourWrites.begin(pinnedUntil(request.getCookies().get(COOKIE)));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        long lastWrite = ReadYourWrites.lastWriteMillis();
+        if (lastWrite == 0 || windowMillis <= 0) {
+            return;
+        }
+        NewCookie cookie = new NewCookie.Builder(COOKIE)
+                .value(String.valueOf(lastWrite + windowMillis))
+                .path("/")
+                .maxAge((int) Math.max(1, (windowMillis + 999) / 1000))
+                .httpOnly(true)
+                .build();
+        response.getHeaders().add("Set-Cookie", cookie);
+    }
+
+    private long pinnedUntil(Cookie cookie) {
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            // A cookie can pin the caller for at most one window from now
+            return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + windowMillis);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.unisys.config;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link DataSource} over one pool per read replica, bound as {@code jdbc/student-replica}.
+ * <p>
+ * Each {@link #getConnection()} picks a replica by the configured {@link Selection} and, if that replica cannot
+ * hand out a connection, tries the others in turn. Only when every replica fails is the last error thrown, which
+ * callers take as the signal to read from the primary instead.
+ * </p>
+ */
+public class ReplicaDataSource implements DataSource, MeterBinder {
+
+    private static final org.slf4j.Logger logger = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    /**
+     * How a replica is chosen for each connection.
+     */
+    public enum Selection {
+        /** Replicas take turns. */
+        ROUND_ROBIN,
+        /** The replica with the fewest borrowed connections wins; ties go to the next in turn. */
+        LEAST_CONNECTIONS;
+
+        /**
+         * Parses {@code round-robin} or {@code least-connections}, case-insensitively.
+         */
+        public static Selection parse(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase());
+        }
+    }
+
+    private final List<InstrumentedDataSource> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile Counter replicaFailures;
+
+    public ReplicaDataSource(List<InstrumentedDataSource> replicas, Selection selection) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int first = choose();
+        SQLException failure = null;
+        for (int i = 0; i < size; i++) {
+            InstrumentedDataSource replica = replicas.get((first + i) % size);
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                Counter counter = replicaFailures;
+                if (counter != null) {
+                    counter.increment();
+                }
+                logger.debug("Replica {} unavailable: {}", replica.getPool().getUrl(), e.getMessage());
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    private int choose() {
+        int turn = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (selection == Selection.ROUND_ROBIN) {
+            return turn;
+        }
+        int best = turn;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (turn + i) % replicas.size();
+            int active = replicas.get(candidate).getPool().getNumActive();
+            if (active < bestActive) {
+                best = candidate;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    public List<InstrumentedDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        replicas.forEach(replica -> replica.bindTo(registry));
+        replicaFailures = Counter.builder("jndi.replica.failures")
+                .description("Connection attempts on a read replica that failed")
+                .register(registry);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return replicas.get(0).getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (InstrumentedDataSource replica : replicas) {
+            replica.setLogWriter(out);
+        }
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (InstrumentedDataSource replica : replicas) {
+            replica.setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return replicas.get(0).getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,61 @@
+package com.unisys.config;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Properties;
+
+import javax.naming.Context;
+import javax.naming.Name;
+import javax.naming.RefAddr;
+import javax.naming.Reference;
+import javax.naming.spi.ObjectFactory;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSourceFactory;
+
+/**
+ * JNDI object factory for {@code jdbc/student-replica}.
+ * <p>
+ * The resource carries the usual DBCP2 properties plus {@code urls}, a comma-separated list of replica URLs, and
+ * {@code selection} ({@code round-robin} or {@code least-connections}). One {@link InstrumentedDataSource} pool is
+ * built per URL from the shared properties, and the pools are handed out together as a {@link ReplicaDataSource}.
+ * </p>
+ */
+public class ReplicaDataSourceFactory implements ObjectFactory {
+
+    static final String POOL_NAME = "jdbc/student-replica";
+
+    @Override
+    public Object getObjectInstance(Object obj, Name name, Context nameCtx, Hashtable<?, ?> environment)
+            throws Exception {
+        if (!(obj instanceof Reference reference)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        Enumeration<RefAddr> addresses = reference.getAll();
+        while (addresses.hasMoreElements()) {
+            RefAddr address = addresses.nextElement();
+            if (address.getContent() != null) {
+                properties.setProperty(address.getType(), address.getContent().toString());
+            }
+        }
+
+        String urls = properties.getProperty("urls", "");
+        ReplicaDataSource.Selection selection =
+                ReplicaDataSource.Selection.parse(properties.getProperty("selection", "round-robin"));
+        List<InstrumentedDataSource> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            Properties replicaProperties = new Properties();
+            replicaProperties.putAll(properties);
+            replicaProperties.setProperty("url", url.trim());
+            BasicDataSource pool = BasicDataSourceFactory.createDataSource(replicaProperties);
+            replicas.add(new InstrumentedDataSource(pool, POOL_NAME + "[" + replicas.size() + "]"));
+        }
+        return new ReplicaDataSource(replicas, selection);
+    }
+}
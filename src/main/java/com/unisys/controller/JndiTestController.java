@@ -2,21 +2,32 @@ package com.unisys.controller;
 
 
 
-import javax.naming.InitialContext;
-import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+import org.springframework.stereotype.Component;
 
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 
+/**
+ * Reports the {@code jdbc/student} DataSource. It is the JNDI DataSource bean, which is looked up once and cached,
+ * so load balancers polling this endpoint cause no naming lookup and no database round trip.
+ */
 @Path("/test")
+@Component
 public class JndiTestController {
-	
+
+	private final DataSource dataSource;
+
+	public JndiTestController(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
 	@GET
     @Produces(MediaType.TEXT_PLAIN)
-	public String getDatasourceFromJndi() throws NamingException {
-		return "DataSource retrieved from JNDI: " +
-				new InitialContext().lookup("java:comp/env/jdbc/student");
+	public String getDatasourceFromJndi() {
+		return "DataSource retrieved from JNDI: " + dataSource;
 	}
-}
\ No newline at end of file
+}
@@ -1,6 +1,16 @@
 package com.unisys.controller;
 
+import com.unisys.dao.OutboxDao;
+import com.unisys.messaging.SystemMessageConverter;
+import com.unisys.model.OutboxEvent;
 import com.unisys.model.SystemMessage;
+import com.unisys.service.CircuitBreaker;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.messaginghub.pooled.jms.JmsPoolConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -10,10 +20,11 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Message;
 import jakarta.jms.MessageProducer;
-import jakarta.jms.ObjectMessage;
 import jakarta.jms.Queue;
 import jakarta.jms.Session;
 import jakarta.ws.rs.Consumes;
@@ -21,12 +32,23 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.util.List;
 import java.util.Properties;
 
+/**
+ * Publishes {@link SystemMessage}s to the broker queue.
+ * <p>
+ * Sends go through the {@code broker} {@link CircuitBreaker}. {@link #publishNow(SystemMessage)} reports a refused or
+ * failed send to the caller; {@link #publishMessage(SystemMessage)} parks such a message in the outbox instead and
+ * answers 202, so neither the endpoint nor in-process callers fail while the broker is down.
+ * </p>
+ */
 @Path("/publish")
 @Component
 public class MessagePublisher {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessagePublisher.class);
+
     @Value("${spring.activemq.broker-url}")
     private String brokerUrl;
 
@@ -42,7 +64,30 @@ public class MessagePublisher {
     @Value("${jms.queue.name}")
     private String queueName;
 
-    private ConnectionFactory connectionFactory;
+    @Value("${jms.publisher.pool.max-connections:1}")
+    private int maxConnections;
+
+    @Value("${jms.publisher.pool.max-sessions-per-connection:100}")
+    private int maxSessionsPerConnection;
+
+    // Fire-and-forget sends; the broker bounds unacknowledged bytes per producer with the window below
+    @Value("${jms.publisher.async-send:false}")
+    private boolean asyncSend;
+
+    @Value("${jms.publisher.producer-window-bytes:1048576}")
+    private int producerWindowBytes;
+
+    @Autowired
+    private SystemMessageConverter messageConverter;
+
+    @Autowired
+    @Qualifier("brokerCircuitBreaker")
+    private CircuitBreaker circuitBreaker; // Not set in benchmarks, which publish directly
+
+    @Autowired
+    private OutboxDao outboxDao;
+
+    private JmsPoolConnectionFactory connectionFactory;
     private Queue queue;
 
     @PostConstruct
@@ -57,35 +102,91 @@ public class MessagePublisher {
 
             // Lookup resources
             Context context = new InitialContext(jndiProps);
-            connectionFactory = (ConnectionFactory) context.lookup(connectionFactoryName);
+            ConnectionFactory brokerConnectionFactory = (ConnectionFactory) context.lookup(connectionFactoryName);
             queue = (Queue) context.lookup(queueName);
+
+            if (brokerConnectionFactory instanceof ActiveMQConnectionFactory activeMqConnectionFactory) {
+                activeMqConnectionFactory.setUseAsyncSend(asyncSend);
+                activeMqConnectionFactory.setProducerWindowSize(producerWindowBytes);
+            }
+
+            // Reuse connections, sessions and producers across publishes. Connections that fail (e.g. broker
+            // restart) are evicted from the pool and replaced on the next publish.
+            connectionFactory = new JmsPoolConnectionFactory();
+            connectionFactory.setConnectionFactory(brokerConnectionFactory);
+            connectionFactory.setMaxConnections(maxConnections);
+            connectionFactory.setMaxSessionsPerConnection(maxSessionsPerConnection);
+            connectionFactory.setBlockIfSessionPoolIsFull(true);
+            connectionFactory.setUseAnonymousProducers(true);
         } catch (NamingException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to initialize MessagePublisher", e);
         }
     }
 
+    @PreDestroy
+    public void close() {
+        if (connectionFactory != null) {
+            connectionFactory.stop();
+        }
+    }
+
     @POST
     @Path("/message")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response publishMessage(SystemMessage systemMessage) {
-        try (Connection connection = connectionFactory.createConnection(username, password)) {
-            connection.start();
-
-            // Create session and producer
-            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            MessageProducer producer = session.createProducer(queue);
-
-            // Create and send ObjectMessage
-            ObjectMessage message = session.createObjectMessage(systemMessage);
-            producer.send(message);
+        Response response = publishNow(systemMessage);
+        if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+            return response;
+        }
+        try {
+            outboxDao.enqueue(List.of(new OutboxEvent(OutboxEvent.SYSTEM_MESSAGE, systemMessage.getSource(), null,
+                    systemMessage.getMessage())));
+            logger.warn("Deferred system message from {} to the outbox", systemMessage.getSource());
+            return Response.accepted("Message queued for delivery.").build();
+        } catch (RuntimeException e) {
+            logger.error("Failed to defer system message from {}", systemMessage.getSource(), e);
+            return response;
+        }
+    }
 
+    /**
+     * Sends the message right away.
+     *
+     * @return 200 if it was sent, 503 if the circuit breaker refused the send, 500 if the send failed.
+     */
+    public Response publishNow(SystemMessage systemMessage) {
+        try {
+            if (circuitBreaker == null) {
+                send(systemMessage);
+            } else {
+                circuitBreaker.execute(() -> {
+                    send(systemMessage);
+                    return null;
+                });
+            }
             return Response.ok("Message sent successfully.").build();
+        } catch (CircuitBreaker.CallNotPermittedException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Failed to send message: " + e.getMessage())
+                    .build();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.warn("Failed to send system message from {}", systemMessage.getSource(), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Failed to send message: " + e.getMessage())
                     .build();
         }
     }
+
+    private void send(SystemMessage systemMessage) throws Exception {
+        // Closing the pooled connection, session and producer returns them to the pool
+        try (Connection connection = connectionFactory.createConnection(username, password);
+             Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+             MessageProducer producer = session.createProducer(queue)) {
+
+            // Encode with the configured wire codec and send
+            Message message = messageConverter.toMessage(systemMessage, session);
+            producer.send(message);
+        }
+    }
 }
@@ -0,0 +1,203 @@
+package com.unisys.controller;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.unisys.dao.UserRowHandler;
+import com.unisys.model.User;
+
+/**
+ * Writes exported users one row at a time as NDJSON or CSV, limited to the requested columns.
+ * <p>
+ * Only a fixed-size write buffer is held, so memory use does not depend on the number of rows.
+ * Closing the writer flushes it but leaves the target stream open.
+ * </p>
+ */
+abstract class UserExportWriter implements UserRowHandler, Closeable {
+
+    enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        String mediaType() {
+            return mediaType;
+        }
+
+        String fileExtension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be ndjson or csv");
+            }
+        }
+    }
+
+    enum Column {
+        ID("id"),
+        USERNAME("username"),
+        EMAIL("email"),
+        VERSION("version"),
+        UPDATED_AT("updatedAt");
+
+        private static final List<Column> DEFAULT = List.of(ID, USERNAME, EMAIL);
+
+        private final String label;
+
+        Column(String label) {
+            this.label = label;
+        }
+
+        Object value(User user) {
+            return switch (this) {
+                case ID -> user.getId();
+                case USERNAME -> user.getUsername();
+                case EMAIL -> user.getEmail();
+                case VERSION -> user.getVersion();
+                case UPDATED_AT -> user.getUpdatedAt() != null ? user.getUpdatedAt().toString() : null;
+            };
+        }
+
+        /**
+         * Parses a comma-separated list of column labels; {@code null} or blank selects id, username and email.
+         */
+        static List<Column> parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DEFAULT;
+            }
+            List<Column> columns = new ArrayList<>();
+            for (String label : value.split(",")) {
+                Column column = byLabel(label.trim());
+                if (!columns.contains(column)) {
+                    columns.add(column);
+                }
+            }
+            return columns;
+        }
+
+        private static Column byLabel(String label) {
+            for (Column column : values()) {
+                if (column.label.equalsIgnoreCase(label)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("Unknown column '" + label + "', expected id, username, email, version or updatedAt");
+        }
+    }
+
+    protected final List<Column> columns;
+
+    private UserExportWriter(List<Column> columns) {
+        this.columns = columns;
+    }
+
+    static UserExportWriter create(Format format, List<Column> columns, OutputStream out, JsonFactory jsonFactory)
+            throws IOException {
+        return format == Format.CSV ? new Csv(columns, out) : new Ndjson(columns, out, jsonFactory);
+    }
+
+    private static final class Ndjson extends UserExportWriter {
+
+        private final JsonGenerator generator;
+
+        Ndjson(List<Column> columns, OutputStream out, JsonFactory jsonFactory) throws IOException {
+            super(columns);
+            this.generator = jsonFactory.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void handle(User user) throws IOException {
+            generator.writeStartObject();
+            for (Column column : columns) {
+                Object value = column.value(user);
+                if (value == null) {
+                    generator.writeNullField(column.label);
+                } else if (value instanceof Long number) {
+                    generator.writeNumberField(column.label, number);
+                } else {
+                    generator.writeStringField(column.label, value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class Csv extends UserExportWriter {
+
+        private final Writer writer;
+
+        Csv(List<Column> columns, OutputStream out) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns.get(i).label);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void handle(User user) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns.get(i).value(user);
+                if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing a separator, quote or line break, doubling embedded quotes
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
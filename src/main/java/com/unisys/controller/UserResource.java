@@ -1,121 +1,545 @@
 package com.unisys.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.model.ImportProgress;
 import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+import com.unisys.model.UserCollectionVersion;
+import com.unisys.model.UserPage;
+import com.unisys.model.UserVersion;
+import com.unisys.service.DownstreamExecutor;
+import com.unisys.service.UserImportService;
 import com.unisys.service.UserService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Link;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.server.ResponseStatusException;
 import com.unisys.security.RequiresAccessControl;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * User endpoints. The single-user and page endpoints return a {@link CompletionStage} and run their database work on
+ * the bounded {@code database} {@link DownstreamExecutor}, so the request thread is released while the query runs and
+ * a slow database queues up there instead of in the container's thread pool. When that executor is saturated or a
+ * call times out, the request is answered with 503 and {@code Retry-After}. Search and import progress are served from
+ * memory on the request thread. Export, the unpaged listing, batch create and import stay on the request thread as
+ * well: their work is paced by the client's upload or download, they cannot sensibly time out, and imports are
+ * bounded on their own. A response entity is written on the thread that completes it, so a stream answered from the
+ * database executor would hold one of its threads, and a connection, for as long as the client takes to read it.
+ */
 @Path("/users")
 @Component
 public class UserResource {
 
     private static final Logger logger = LoggerFactory.getLogger(UserResource.class);
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+    private final DownstreamExecutor databaseExecutor;
 
     private static final String USER_NOT_FOUND_MESSAGE = "User not found";
     private static final String INTERNAL_SERVER_ERROR_MESSAGE = "An internal error occurred";
     private static final String VALIDATION_ERROR_MESSAGE = "Validation error occurred: ";
+    private static final String DATABASE_BUSY_MESSAGE = "The database is busy, please retry";
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final int EXPORT_GZIP_BUFFER_SIZE = 64 * 1024;
 
-    public UserResource(UserService userService) {
-        if (userService == null) {
-            throw new IllegalArgumentException("UserService cannot be null");
+    private static final String IMPORT_RETRY_AFTER_SECONDS = "30";
+    private static final String SEARCH_RETRY_AFTER_SECONDS = "5";
+    private static final String BUSY_RETRY_AFTER_SECONDS = "1";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    public UserResource(UserService userService, UserImportService userImportService, ObjectMapper objectMapper,
+                        @Qualifier("databaseExecutor") DownstreamExecutor databaseExecutor) {
+        if (userService == null || userImportService == null || objectMapper == null || databaseExecutor == null) {
+            throw new IllegalArgumentException("UserService, UserImportService, ObjectMapper and DownstreamExecutor cannot be null");
         }
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
+        this.databaseExecutor = databaseExecutor;
+    }
+
+    /**
+     * Lists users. With {@code after} and/or {@code limit} a single keyset page is returned together
+     * with a {@code next} link; without them every user is streamed straight from the database cursor
+     * into the JSON array, so the full table is never held in memory.
+     * <p>
+     * The full listing carries a collection ETag derived from one aggregate query over the table, so an
+     * unchanged table is answered with 304 before any row is read. A page is tagged by the IDs and versions
+     * of its rows, which saves serializing and sending a page the client already has.
+     * </p>
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> getAllUsers(@QueryParam("after") Long after, @QueryParam("limit") Integer limit,
+                                                 @Context UriInfo uriInfo, @Context Request request) {
+        if (after == null && limit == null) {
+            // Written at the client's reading pace, so it stays off the database executor like the export
+            return CompletableFuture.completedFuture(listAllUsers(request));
+        }
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and " + MAX_PAGE_SIZE)
+                    .build());
+        }
+        return onDatabase(() -> {
+            try {
+                List<User> users = userService.getUsersAfter(after != null ? after : 0L, pageSize);
+                EntityTag tag = pageTag(users);
+                Instant lastModified = users.stream().map(User::getUpdatedAt).filter(t -> t != null)
+                        .max(Instant::compareTo).orElse(null);
+                Response.ResponseBuilder notModified = evaluatePreconditions(request, tag, lastModified);
+                if (notModified != null) {
+                    return notModified.build();
+                }
+                if (users.size() < pageSize) {
+                    return withValidators(Response.ok(new UserPage(users, null)), tag, lastModified).build();
+                }
+                URI next = uriInfo.getRequestUriBuilder()
+                        .replaceQueryParam("after", users.get(users.size() - 1).getId())
+                        .replaceQueryParam("limit", pageSize)
+                        .build();
+                return withValidators(Response.ok(new UserPage(users, next.toString())), tag, lastModified)
+                        .links(Link.fromUri(next).rel("next").build())
+                        .build();
+            } catch (Exception e) {
+                return handleInternalError(e);
+            }
+        });
     }
 
+    /**
+     * Finds users whose username or email contains {@code q} (or, with {@code match=prefix}, starts with it),
+     * ignoring case. Served from the in-memory search index without a database query; answered with 503 while
+     * the index is still being built at startup. Pages are in ID order and linked like {@link #getAllUsers}.
+     */
     @GET
+    @Path("/search")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllUsers() {
+    public Response searchUsers(@QueryParam("q") String q,
+                                @QueryParam("match") @DefaultValue("contains") String match,
+                                @QueryParam("after") @DefaultValue("0") long after,
+                                @QueryParam("limit") Integer limit,
+                                @Context UriInfo uriInfo) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and " + MAX_PAGE_SIZE)
+                    .build();
+        }
+        if (!match.equals("contains") && !match.equals("prefix")) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("match must be contains or prefix").build();
+        }
         try {
-            return Response.ok(userService.getAllUsers()).build();
+            List<User> users = userService.searchUsers(q, match.equals("prefix"), after, pageSize);
+            if (users.size() < pageSize) {
+                return Response.ok(new UserPage(users, null)).build();
+            }
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", users.get(users.size() - 1).getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build();
+            return Response.ok(new UserPage(users, next.toString()))
+                    .links(Link.fromUri(next).rel("next").build())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, SEARCH_RETRY_AFTER_SECONDS)
+                    .entity(e.getMessage())
+                    .build();
         } catch (Exception e) {
             return handleInternalError(e);
         }
     }
 
-    @GET
-    @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getUserById(@PathParam("id") @NotNull Long id) {
+    private Response listAllUsers(Request request) {
         try {
-            User user = userService.getUserById(id);
-            if (user != null) {
-                return Response.ok(user).build();
+            UserCollectionVersion version = userService.getCollectionVersion();
+            EntityTag tag = collectionTag(version);
+            Response.ResponseBuilder notModified = evaluatePreconditions(request, tag, version.getLastModified());
+            if (notModified != null) {
+                return notModified.build();
             }
-            return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
+            return withValidators(Response.ok(streamAllUsers()), tag, version.getLastModified()).build();
         } catch (Exception e) {
             return handleInternalError(e);
         }
     }
 
+    private StreamingOutput streamAllUsers() {
+        return output -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            userService.streamAllUsers(generator::writeObject);
+            generator.writeEndArray();
+            generator.close();
+        };
+    }
+
+    /**
+     * Bulk export for analytics jobs. Rows are streamed in ID order from a server-side cursor and written as
+     * they arrive, as NDJSON (default) or CSV with a header line, so memory use stays flat however large the
+     * table is.
+     *
+     * @param format  {@code ndjson} or {@code csv}
+     * @param columns comma-separated subset of {@code id,username,email,version,updatedAt}; defaults to the first three
+     * @param after   resume after this ID, i.e. the last one received by an interrupted export
+     * @param acceptEncoding the body is gzip-compressed if the client accepts {@code gzip}
+     */
+    @GET
+    @Path("/export")
+    public Response exportUsers(@QueryParam("format") @DefaultValue("ndjson") String format,
+                                @QueryParam("columns") String columns,
+                                @QueryParam("after") @DefaultValue("0") long after,
+                                @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        UserExportWriter.Format exportFormat;
+        List<UserExportWriter.Column> exportColumns;
+        try {
+            exportFormat = UserExportWriter.Format.parse(format);
+            exportColumns = UserExportWriter.Column.parse(columns);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingOutput body = output -> {
+            OutputStream target = gzip ? new GZIPOutputStream(output, EXPORT_GZIP_BUFFER_SIZE) : output;
+            try (UserExportWriter writer = UserExportWriter.create(exportFormat, exportColumns, target,
+                    objectMapper.getFactory())) {
+                userService.streamUsersAfter(after, writer);
+            }
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        Response.ResponseBuilder response = Response.ok(body, exportFormat.mediaType() + ";charset=UTF-8")
+                .header("Content-Disposition", "attachment; filename=\"users." + exportFormat.fileExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.encoding("gzip");
+        }
+        return response.build();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns one user with a strong ETag (its row version) and {@code Last-Modified}. A conditional request
+     * is answered from the cached user or a lookup of the version columns, and gets 304 without the row
+     * being fetched if the client's copy is current.
+     */
+    @GET
+    @Path("/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> getUserById(@PathParam("id") @NotNull Long id, @Context Request request,
+                                                 @Context HttpHeaders headers) {
+        boolean conditional = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null
+                || headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE) != null;
+        return onDatabase(() -> {
+            try {
+                if (conditional) {
+                    UserVersion version = userService.getUserVersion(id);
+                    if (version == null) {
+                        return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
+                    }
+                    Response.ResponseBuilder notModified =
+                            evaluatePreconditions(request, versionTag(version.getVersion()), version.getUpdatedAt());
+                    if (notModified != null) {
+                        return notModified.build();
+                    }
+                }
+                User user = userService.getUserById(id);
+                if (user != null) {
+                    EntityTag tag = user.getVersion() != null ? versionTag(user.getVersion()) : null;
+                    return withValidators(Response.ok(user), tag, user.getUpdatedAt()).build();
+                }
+                return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
+            } catch (Exception e) {
+                return handleInternalError(e);
+            }
+        });
+    }
+
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
    @RequiresAccessControl(role = "ADMIN")  // This triggers the security aspect
-    public Response createUser(@Valid User user) {
+    public CompletionStage<Response> createUser(@Valid User user) {
         if (user.getUsername() == null || user.getEmail() == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity("Username and email are required.")
-                    .build();
+                    .build());
+        }
+        return onDatabase(() -> {
+            try {
+                String result = userService.createUser(user);
+                return Response.status(Response.Status.CREATED).entity(result).build();
+            } catch (SecurityException e) {
+            	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); 
+            } catch (ResponseStatusException e) {
+                if (e.getStatusCode().value() != Response.Status.CONFLICT.getStatusCode()) {
+                    return handleInternalError(e);
+                }
+                return Response.status(Response.Status.CONFLICT).entity(e.getReason()).build();
+            }catch (IllegalArgumentException e) {
+                logger.error(VALIDATION_ERROR_MESSAGE, e.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+            } catch (Exception e) {
+                return handleInternalError(e);
+            }
+        });
+    }
+
+    /**
+     * Creates many users from a JSON array or an NDJSON stream. Rows are read incrementally and inserted
+     * in JDBC batches; the response lists the outcome and generated ID of every row.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    @RequiresAccessControl(role = "ADMIN")  // This triggers the security aspect
+    public Response createUsers(InputStream body) {
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(body)) {
+            List<UserBatchResult> results = userService.createUsers(users);
+            return Response.ok(results).build();
+        } catch (SecurityException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e);
+        } catch (JsonProcessingException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Malformed user batch: " + e.getOriginalMessage()).build();
+        } catch (Exception e) {
+            return handleInternalError(e);
         }
+    }
+
+    /**
+     * Imports users from an NDJSON or CSV stream, inserting new usernames and updating the email of existing
+     * ones. The body is read as it is written, in chunks, and rows that fail to parse, validate or save are
+     * reported by line without stopping the import. Progress can be followed with {@code GET /users/import/{importId}}
+     * while the request runs. Imported users get no welcome email.
+     *
+     * @param importId optional ID to follow the import by; one is generated otherwise
+     */
+    @POST
+    @Path("/import")
+    @Consumes({NDJSON, "text/csv"})
+    @Produces(MediaType.APPLICATION_JSON)
+    @RequiresAccessControl(role = "ADMIN")  // This triggers the security aspect
+    public Response importUsers(@QueryParam("importId") String importId,
+                                @HeaderParam(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                InputStream body) {
+        String format = contentType != null && contentType.isCompatible(MediaType.valueOf("text/csv"))
+                ? UserImportService.CSV : UserImportService.NDJSON;
         try {
-            String result = userService.createUser(user);
-            return Response.status(Response.Status.CREATED).entity(result).build();
+            ImportProgress progress = userImportService.importUsers(importId, format,
+                    new InputStreamReader(body, StandardCharsets.UTF_8));
+            Response.Status status = ImportProgress.COMPLETED.equals(progress.getState())
+                    ? Response.Status.OK : Response.Status.INTERNAL_SERVER_ERROR;
+            return Response.status(status).entity(progress).build();
         } catch (SecurityException e) {
-        	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); 
-        }catch (IllegalArgumentException e) {
-            logger.error(VALIDATION_ERROR_MESSAGE, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e);
+        } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode().value() != Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+                throw e;
+            }
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, IMPORT_RETRY_AFTER_SECONDS)
+                    .entity(e.getReason())
+                    .build();
         } catch (Exception e) {
             return handleInternalError(e);
         }
     }
 
+    @GET
+    @Path("/import")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getImports() {
+        return Response.ok(userImportService.getImports()).build();
+    }
+
+    @GET
+    @Path("/import/{importId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getImport(@PathParam("importId") String importId) {
+        ImportProgress progress = userImportService.getImport(importId);
+        if (progress == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Import not found").build();
+        }
+        return Response.ok(progress).build();
+    }
+
+    /**
+     * Updates a user. With write-behind enabled, bursts of updates to the same user are coalesced and written
+     * in batches: the call waits for the batch to commit, unless the client sends {@code Prefer: respond-async},
+     * in which case it gets 202 Accepted as soon as the update is queued.
+     */
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateUser(@PathParam("id") @NotNull Long id, @Valid User user) {
+    public CompletionStage<Response> updateUser(@PathParam("id") @NotNull Long id, @Valid User user,
+                                                @HeaderParam("Prefer") String prefer) {
         try {
-            boolean updated = userService.updateUser(id, user);
-            if (updated) {
-                return Response.ok("User updated successfully").build();
+            // Queuing in the write-behind buffer does not block, so it needs no hop to the database executor
+            if (prefer != null && prefer.toLowerCase().contains("respond-async") && userService.submitUpdate(id, user)) {
+                return CompletableFuture.completedFuture(Response.accepted("User update accepted")
+                        .header("Preference-Applied", "respond-async").build());
             }
-            return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
         } catch (Exception e) {
-            return handleInternalError(e);
+            return CompletableFuture.completedFuture(handleInternalError(e));
         }
+        return onDatabase(() -> {
+            try {
+                boolean updated = userService.updateUser(id, user);
+                if (updated) {
+                    return Response.ok("User updated successfully").build();
+                }
+                return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
+            } catch (Exception e) {
+                return handleInternalError(e);
+            }
+        });
     }
 
     @DELETE
     @Path("/{id}")
   @RequiresAccessControl(role = "ADMIN")  // This triggers the security aspect
-    public Response deleteUser(@PathParam("id") @NotNull Long id) {
-        try {
-            boolean deleted = userService.deleteUser(id);
-            if (deleted) {
-                return Response.ok("User deleted successfully").build();
+    public CompletionStage<Response> deleteUser(@PathParam("id") @NotNull Long id) {
+        return onDatabase(() -> {
+            try {
+                boolean deleted = userService.deleteUser(id);
+                if (deleted) {
+                    return Response.ok("User deleted successfully").build();
+                }
+                return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
+            }catch (SecurityException e) {
+            	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); }
+            catch (Exception e) {
+                return handleInternalError(e);
             }
-            return Response.status(Response.Status.NOT_FOUND).entity(USER_NOT_FOUND_MESSAGE).build();
-        }catch (SecurityException e) {
-        	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); }
-        catch (Exception e) {
-            return handleInternalError(e);
+        });
+    }
+
+    /**
+     * Runs the call on the database executor. Saturation and timeouts of the executor are answered with 503, and
+     * exceptions that escape the call are answered like they would be on the request thread.
+     */
+    private CompletionStage<Response> onDatabase(Callable<Response> call) {
+        return databaseExecutor.supply(call).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException || cause instanceof TimeoutException) {
+                logger.warn("Database executor {}: {}", cause instanceof TimeoutException ? "timed out" : "saturated",
+                        cause.getMessage());
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, BUSY_RETRY_AFTER_SECONDS)
+                        .entity(DATABASE_BUSY_MESSAGE)
+                        .build();
+            }
+            if (cause instanceof ResponseStatusException e) {
+                return handleResponseStatusException(e);
+            }
+            return handleInternalError(cause);
+        });
+    }
+
+    private static EntityTag versionTag(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+
+    private static EntityTag collectionTag(UserCollectionVersion version) {
+        Instant lastModified = version.getLastModified();
+        return new EntityTag(Long.toHexString(version.getCount()) + "-" + Long.toHexString(version.getMaxId())
+                + "-" + Long.toHexString(version.getVersionSum())
+                + "-" + Long.toHexString(lastModified != null ? lastModified.toEpochMilli() : 0));
+    }
+
+    private static EntityTag pageTag(List<User> users) {
+        long hash = 1125899906842597L;
+        for (User user : users) {
+            hash = 31 * hash + user.getId();
+            hash = 31 * hash + (user.getVersion() != null ? user.getVersion() : 0);
+        }
+        return new EntityTag(Integer.toHexString(users.size()) + "-" + Long.toHexString(hash));
+    }
+
+    /**
+     * @return a 304 (or 412) response if the request's preconditions say the client's copy is current
+     */
+    private static Response.ResponseBuilder evaluatePreconditions(Request request, EntityTag tag, Instant lastModified) {
+        if (lastModified == null) {
+            return request.evaluatePreconditions(tag);
+        }
+        return request.evaluatePreconditions(Date.from(lastModified), tag);
+    }
+
+    private static Response.ResponseBuilder withValidators(Response.ResponseBuilder response, EntityTag tag,
+                                                           Instant lastModified) {
+        if (tag != null) {
+            response.tag(tag);
+        }
+        if (lastModified != null) {
+            response.lastModified(Date.from(lastModified));
         }
+        return response;
     }
 
     // Global error handling for internal errors and security exceptions
-    private Response handleInternalError(Exception e) {
+    private Response handleInternalError(Throwable e) {
         logger.error("Unhandled error: {}", e.getMessage(), e);
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                 .entity(INTERNAL_SERVER_ERROR_MESSAGE)
@@ -0,0 +1,129 @@
+package com.unisys.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.unisys.tracing.Trace;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for the JDBC calls of one DAO, tagged with {@code dao} and {@code operation}:
+ * <ul>
+ *   <li>{@code dao.connection.acquire} - time spent getting a connection from the data source</li>
+ *   <li>{@code dao.query.execute} - time from having the connection to having consumed the result</li>
+ *   <li>{@code dao.query.rows} - rows returned by a query, or affected by an update</li>
+ *   <li>{@code dao.query.errors} - failed calls, additionally tagged with the {@code sqlstate}</li>
+ *   <li>{@code dao.replica.fallbacks} - reads sent to the primary because no replica could hand out a connection</li>
+ * </ul>
+ * The meters of an operation are registered once (the error counters once per SQLState), so recording does not allocate.
+ * When the calling request is traced, the acquire and execute times are also recorded as {@code pool} and
+ * {@code dao} spans.
+ */
+final class DaoMetrics {
+
+    private final MeterRegistry registry;
+    private final String dao;
+
+    DaoMetrics(MeterRegistry registry, String dao) {
+        this.registry = registry;
+        this.dao = dao;
+    }
+
+    Operation operation(String name) {
+        return new Operation(name);
+    }
+
+    final class Operation {
+
+        private final String name;
+        private final Timer acquireTimer;
+        private final Timer executeTimer;
+        private final DistributionSummary rowsSummary;
+        private final Counter replicaFallbacks;
+        private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+        private Operation(String name) {
+            this.name = name;
+            this.acquireTimer = Timer.builder("dao.connection.acquire")
+                    .description("Time spent acquiring a JDBC connection")
+                    .tags("dao", dao, "operation", name)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.executeTimer = Timer.builder("dao.query.execute")
+                    .description("Time spent executing a statement and reading its result")
+                    .tags("dao", dao, "operation", name)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.rowsSummary = DistributionSummary.builder("dao.query.rows")
+                    .description("Rows returned or affected per call")
+                    .baseUnit("rows")
+                    .tags("dao", dao, "operation", name)
+                    .register(registry);
+            this.replicaFallbacks = Counter.builder("dao.replica.fallbacks")
+                    .description("Reads sent to the primary because no replica was available")
+                    .tags("dao", dao, "operation", name)
+                    .register(registry);
+        }
+
+        /**
+         * Gets a connection from the data source, timing the wait.
+         */
+        Connection connect(DataSource dataSource) throws SQLException {
+            long start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            long end = System.nanoTime();
+            acquireTimer.record(end - start, TimeUnit.NANOSECONDS);
+            Trace trace = Trace.current();
+            if (trace != null) {
+                trace.record("pool", name, start, end);
+            }
+            return connection;
+        }
+
+        /**
+         * Records a completed call.
+         *
+         * @param startNanos {@link System#nanoTime()} taken once the connection was acquired
+         * @param rows       rows returned or affected
+         */
+        void executed(long startNanos, long rows) {
+            long end = System.nanoTime();
+            executeTimer.record(end - startNanos, TimeUnit.NANOSECONDS);
+            rowsSummary.record(rows);
+            Trace trace = Trace.current();
+            if (trace != null) {
+                trace.record("dao", name, startNanos, end);
+            }
+        }
+
+        void fellBackToPrimary() {
+            replicaFallbacks.increment();
+        }
+
+        void failed(Throwable error) {
+            errors.computeIfAbsent(sqlState(error), state -> Counter.builder("dao.query.errors")
+                    .description("Failed DAO calls by SQLState")
+                    .tags("dao", dao, "operation", name, "sqlstate", state)
+                    .register(registry))
+                    .increment();
+        }
+    }
+
+    private static String sqlState(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return sqlException.getSQLState() != null ? sqlException.getSQLState() : "unknown";
+            }
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,219 @@
+package com.unisys.dao;
+
+import com.unisys.errors.DaoException;
+import com.unisys.model.OutboxEvent;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Access to the {@code user_outbox} table (DDL in {@code db/outbox.sql}).
+ * <p>
+ * Events are written with {@link #insertEvents(Connection, List)} on the caller's connection so they commit or
+ * roll back together with the user row. {@link #dispatchDue(int, long, int, IntToLongFunction, Consumer)} claims
+ * due events with {@code FOR UPDATE SKIP LOCKED} and a lease, so several dispatcher threads (and nodes) never
+ * deliver the same row at the same time.
+ * </p>
+ */
+public class OutboxDao {
+
+    private static final Logger logger = Logger.getLogger(OutboxDao.class.getName());
+
+    private static final String PENDING = "PENDING";
+    private static final String IN_FLIGHT = "IN_FLIGHT";
+    private static final String FAILED = "FAILED";
+
+    private final DataSource dataSource;
+
+    public OutboxDao(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource cannot be null");
+        }
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Records events outside of any user write, e.g. work that could not be done right away and is parked for the
+     * dispatcher.
+     */
+    public void enqueue(List<OutboxEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            insertEvents(conn, events);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to enqueue outbox events", e);
+            throw new DaoException("Failed to enqueue outbox events", e);
+        }
+    }
+
+    static void insertEvents(Connection conn, List<OutboxEvent> events) throws SQLException {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        String query = "INSERT INTO user_outbox (event_type, destination, subject, body) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+            for (OutboxEvent event : events) {
+                ps.setString(1, event.getType());
+                ps.setString(2, event.getDestination());
+                ps.setString(3, event.getSubject());
+                ps.setString(4, event.getBody());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Claims up to {@code limit} due events, hands them to {@code dispatcher} and records the outcome: events marked
+     * dispatched are deleted, the others are rescheduled after {@code backoffMillis(attempts)} or marked failed once
+     * {@code maxAttempts} is reached. Events marked deferred were not attempted at all and are rescheduled without
+     * counting an attempt.
+     * <p>
+     * Claiming and recording are two short transactions; the dispatcher runs between them without holding row locks
+     * or a connection. Claimed events are IN_FLIGHT until {@code leaseMillis} from now. If the outcome is not recorded
+     * by then (the node died, or the sends took longer), the events are claimed again, and the late outcome of the
+     * first claim is discarded.
+     * </p>
+     *
+     * @return the number of events claimed
+     */
+    public int dispatchDue(int limit, long leaseMillis, int maxAttempts, IntToLongFunction backoffMillis,
+                           Consumer<List<OutboxEvent>> dispatcher) {
+        Map<Long, Timestamp> leases = new HashMap<>();
+        List<OutboxEvent> events = claim(limit, leaseMillis, leases);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        dispatcher.accept(events);
+        recordOutcome(events, leases, maxAttempts, backoffMillis);
+        return events.size();
+    }
+
+    private List<OutboxEvent> claim(int limit, long leaseMillis, Map<Long, Timestamp> leases) {
+        String select = "SELECT id, event_type, destination, subject, body, attempts, created_at FROM user_outbox "
+                + "WHERE status IN ('" + PENDING + "', '" + IN_FLIGHT + "') AND next_attempt_at <= CURRENT_TIMESTAMP(3) "
+                + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+        String lease = "UPDATE user_outbox SET status = '" + IN_FLIGHT + "', "
+                + "next_attempt_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) WHERE id = ?";
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<OutboxEvent> events = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(select)) {
+                    ps.setInt(1, limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            OutboxEvent event = new OutboxEvent(rs.getString("event_type"), rs.getString("destination"),
+                                    rs.getString("subject"), rs.getString("body"));
+                            event.setId(rs.getLong("id"));
+                            event.setAttempts(rs.getInt("attempts"));
+                            event.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+                            events.add(event);
+                        }
+                    }
+                }
+                if (!events.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(lease)) {
+                        for (OutboxEvent event : events) {
+                            ps.setLong(1, leaseMillis * 1000L);
+                            ps.setLong(2, event.getId());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                    // The lease expiry, read back as the database stored it, identifies this claim
+                    String leased = "SELECT id, next_attempt_at FROM user_outbox WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(events.size(), "?")) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(leased)) {
+                        for (int i = 0; i < events.size(); i++) {
+                            ps.setLong(i + 1, events.get(i).getId());
+                        }
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                leases.put(rs.getLong("id"), rs.getTimestamp("next_attempt_at"));
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+                return events;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to claim outbox events", e);
+            throw new DaoException("Failed to claim outbox events", e);
+        }
+    }
+
+    private void recordOutcome(List<OutboxEvent> events, Map<Long, Timestamp> leases, int maxAttempts,
+                               IntToLongFunction backoffMillis) {
+        // Only rows still held by this claim; a row whose lease expired and was claimed again belongs to the new claim
+        String owned = " WHERE id = ? AND status = '" + IN_FLIGHT + "' AND next_attempt_at = ?";
+        String delete = "DELETE FROM user_outbox" + owned;
+        String retry = "UPDATE user_outbox SET attempts = ?, status = ?, "
+                + "next_attempt_at = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3))" + owned;
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement deletePs = conn.prepareStatement(delete);
+                 PreparedStatement retryPs = conn.prepareStatement(retry)) {
+                for (OutboxEvent event : events) {
+                    Timestamp lease = leases.get(event.getId());
+                    if (event.isDispatched()) {
+                        deletePs.setLong(1, event.getId());
+                        deletePs.setTimestamp(2, lease);
+                        deletePs.addBatch();
+                    } else {
+                        int attempts = event.isDeferred() ? event.getAttempts() : event.getAttempts() + 1;
+                        retryPs.setInt(1, attempts);
+                        retryPs.setString(2, !event.isDeferred() && attempts >= maxAttempts ? FAILED : PENDING);
+                        retryPs.setLong(3, backoffMillis.applyAsLong(Math.max(attempts, 1)) * 1000L);
+                        retryPs.setLong(4, event.getId());
+                        retryPs.setTimestamp(5, lease);
+                        retryPs.addBatch();
+                    }
+                }
+                int lost = countUnchanged(deletePs.executeBatch()) + countUnchanged(retryPs.executeBatch());
+                conn.commit();
+                if (lost > 0) {
+                    logger.log(Level.WARNING, "Lease expired for {0} outbox events before their outcome was recorded; "
+                            + "they are dispatched again", lost);
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to record outbox outcome", e);
+            throw new DaoException("Failed to record outbox outcome", e);
+        }
+    }
+
+    private static int countUnchanged(int[] updateCounts) {
+        int unchanged = 0;
+        for (int count : updateCounts) {
+            if (count == 0) {
+                unchanged++;
+            }
+        }
+        return unchanged;
+    }
+}
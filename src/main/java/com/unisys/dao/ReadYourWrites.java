@@ -0,0 +1,72 @@
+package com.unisys.dao;
+
+/**
+ * Per-thread read-your-writes state that keeps reads on the primary while a caller's writes may not have reached
+ * the replicas yet.
+ * <p>
+ * A request is pinned to the primary once it has written, and for as long as the caller's previous write is within
+ * the configured window (carried between requests by {@code ReadYourWritesFilter}). Threads that never call
+ * {@link #begin(long)}, like the scheduler, read from the replicas.
+ * </p>
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Resets the state of the current thread at the start of a request.
+     *
+     * @param pinnedUntilMillis epoch millis until which the caller must read from the primary, or {@code 0}
+     */
+    public static void begin(long pinnedUntilMillis) {
+        State state = STATE.get();
+        state.pinnedUntilMillis = pinnedUntilMillis;
+        state.lastWriteMillis = 0;
+    }
+
+    /**
+     * @return the epoch millis of the last write made on this thread since {@link #begin(long)}, or {@code 0}
+     */
+    public static long lastWriteMillis() {
+        return STATE.get().lastWriteMillis;
+    }
+
+    /**
+     * Marks the current thread as having written. DAOs call this after each write; it is public for writes that
+     * are queued on the caller's behalf and committed later on another thread.
+     */
+    public static void recordWrite() {
+        STATE.get().lastWriteMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Wraps a task that continues the current request on another thread, so it reads and records writes like the
+     * request would. The state is left on that thread afterwards, as it is after a request, so that response
+     * filters running there still see the writes.
+     */
+    public static Runnable propagate(Runnable task) {
+        State caller = STATE.get();
+        long pinnedUntilMillis = caller.pinnedUntilMillis;
+        long lastWriteMillis = caller.lastWriteMillis;
+        return () -> {
+            State state = STATE.get();
+            state.pinnedUntilMillis = pinnedUntilMillis;
+            state.lastWriteMillis = lastWriteMillis;
+            task.run();
+        };
+    }
+
+    static boolean isPinnedToPrimary() {
+        State state = STATE.get();
+        return state.lastWriteMillis != 0
+                || (state.pinnedUntilMillis != 0 && state.pinnedUntilMillis > System.currentTimeMillis());
+    }
+
+    private static final class State {
+        private long pinnedUntilMillis;
+        private long lastWriteMillis;
+    }
+}
@@ -1,147 +1,789 @@
 package com.unisys.dao;
 
+import com.unisys.model.OutboxEvent;
 import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+import com.unisys.model.UserCollectionVersion;
+import com.unisys.model.UserVersion;
 import com.unisys.errors.DaoException;
 
-import javax.naming.InitialContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * JDBC access to the {@code users} table.
+ * <p>
+ * Every operation publishes its connection-acquire time, execute time, row count and errors by SQLState
+ * (see {@link DaoMetrics}). Per-call logging is at {@link Level#FINE} and guarded, so it costs nothing
+ * unless enabled; only failures are logged at {@link Level#SEVERE}.
+ * </p>
+ * <p>
+ * If a read replica DataSource is available, read-only operations borrow from it and fall back to the primary
+ * when no replica can hand out a connection. Callers pinned by {@link ReadYourWrites} always read from the primary,
+ * and so do loads that are cached, see {@link #getUserByIdFromPrimary(Long)}.
+ * </p>
+ */
 public class UserDao {
 
     private static final Logger logger = Logger.getLogger(UserDao.class.getName());
-    private DataSource dataSource;
 
-    public UserDao() {
+    // Rows pulled per round trip when streaming; MySQL honours this only with useCursorFetch=true
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String UPDATE_USER = "UPDATE users SET username = ?, email = ?, version = version + 1, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_USER = "INSERT INTO users (username, email, version, updated_at) VALUES (?, ?, 1, ?)";
+
+    // Keyed by the unique username; the version only moves when the email actually changes
+    private static final String UPSERT_USER = INSERT_USER + " ON DUPLICATE KEY UPDATE"
+            + " version = CASE WHEN email = VALUES(email) THEN version ELSE version + 1 END,"
+            + " updated_at = CASE WHEN email = VALUES(email) THEN updated_at ELSE VALUES(updated_at) END,"
+            + " email = VALUES(email)";
+
+    private final DataSource dataSource;
+    private final DataSource replicaDataSource;
+
+    private final DaoMetrics.Operation getAllMetrics;
+    private final DaoMetrics.Operation countMetrics;
+    private final DaoMetrics.Operation pageMetrics;
+    private final DaoMetrics.Operation streamMetrics;
+    private final DaoMetrics.Operation getByIdMetrics;
+    private final DaoMetrics.Operation createMetrics;
+    private final DaoMetrics.Operation createBatchMetrics;
+    private final DaoMetrics.Operation upsertBatchMetrics;
+    private final DaoMetrics.Operation updateMetrics;
+    private final DaoMetrics.Operation updateBatchMetrics;
+    private final DaoMetrics.Operation deleteMetrics;
+    private final DaoMetrics.Operation versionMetrics;
+    private final DaoMetrics.Operation usernameExistsMetrics;
+    private final DaoMetrics.Operation collectionVersionMetrics;
+
+    public UserDao(DataSource dataSource) {
+        this(dataSource, Metrics.globalRegistry);
+    }
+
+    public UserDao(DataSource dataSource, MeterRegistry meterRegistry) {
+        this(dataSource, null, meterRegistry);
+    }
+
+    /**
+     * @param replicaDataSource where read-only operations go, or {@code null} to read from the primary
+     */
+    public UserDao(DataSource dataSource, DataSource replicaDataSource, MeterRegistry meterRegistry) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource cannot be null");
+        }
+        this.dataSource = dataSource;
+        this.replicaDataSource = replicaDataSource;
+        DaoMetrics metrics = new DaoMetrics(meterRegistry, "users");
+        this.getAllMetrics = metrics.operation("getAllUsers");
+        this.countMetrics = metrics.operation("countUsers");
+        this.pageMetrics = metrics.operation("getUsersAfter");
+        this.streamMetrics = metrics.operation("streamAllUsers");
+        this.getByIdMetrics = metrics.operation("getUserById");
+        this.createMetrics = metrics.operation("createUser");
+        this.createBatchMetrics = metrics.operation("createUsers");
+        this.upsertBatchMetrics = metrics.operation("upsertUsers");
+        this.updateMetrics = metrics.operation("updateUser");
+        this.updateBatchMetrics = metrics.operation("updateUsers");
+        this.deleteMetrics = metrics.operation("deleteUser");
+        this.versionMetrics = metrics.operation("getUserVersion");
+        this.usernameExistsMetrics = metrics.operation("findExistingUsernames");
+        this.collectionVersionMetrics = metrics.operation("getCollectionVersion");
+    }
+
+    /**
+     * Borrows a connection for a read-only operation: from the replicas unless the caller is pinned to the
+     * primary, and from the primary if no replica can hand one out.
+     */
+    private Connection readConnection(DaoMetrics.Operation operation) throws SQLException {
+        if (replicaDataSource == null || ReadYourWrites.isPinnedToPrimary()) {
+            return operation.connect(dataSource);
+        }
         try {
-            InitialContext ctx = new InitialContext();
-            dataSource = (DataSource) ctx.lookup("java:/comp/env/jdbc/student");
-            logger.log(Level.INFO, "DataSource initialized successfully");
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to initialize DataSource. Application might not function correctly.", e);
+            return operation.connect(replicaDataSource);
+        } catch (SQLException e) {
+            operation.fellBackToPrimary();
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "No read replica available, reading from the primary: {0}", e.getMessage());
+            }
+            return operation.connect(dataSource);
         }
     }
 
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String query = "SELECT * FROM users";
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (Connection conn = readConnection(getAllMetrics);
+             Statement stmt = conn.createStatement()) {
+
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
+            }
+            getAllMetrics.executed(start, users.size());
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Retrieved {0} users from the database.", users.size());
+            }
+        } catch (SQLException e) {
+            getAllMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to retrieve users. Query: " + query);
+            throw new DaoException("Failed to retrieve users", e);
+        }
+        return users;
+    }
+
+    /**
+     * Looks up which of the usernames are already taken. Always reads the primary, since the answer decides
+     * whether a row is inserted.
+     *
+     * @return the taken usernames, as stored
+     */
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames == null || usernames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String query = "SELECT username FROM users WHERE username IN ("
+                + String.join(", ", Collections.nCopies(usernames.size(), "?")) + ")";
+        try (Connection conn = usernameExistsMetrics.connect(dataSource);
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            long start = System.nanoTime();
+            int parameter = 1;
+            for (String username : usernames) {
+                ps.setString(parameter++, username);
+            }
+            List<String> existing = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+            usernameExistsMetrics.executed(start, existing.size());
+            return existing;
+        } catch (SQLException e) {
+            usernameExistsMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to look up " + usernames.size() + " usernames");
+            throw new DaoException("Failed to look up usernames", e);
+        }
+    }
+
+    public long countUsers() {
+        String query = "SELECT COUNT(*) FROM users";
+        try (Connection conn = readConnection(countMetrics);
+             Statement stmt = conn.createStatement()) {
+
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                rs.next();
+                long count = rs.getLong(1);
+                countMetrics.executed(start, 1);
+                return count;
+            }
+        } catch (SQLException e) {
+            countMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to count users. Query: " + query);
+            throw new DaoException("Failed to count users", e);
+        }
+    }
+
+    public List<User> getUsersAfter(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<User> users = new ArrayList<>(limit);
+        String query = "SELECT id, username, email, version, updated_at FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        try (Connection conn = readConnection(pageMetrics);
+             PreparedStatement ps = conn.prepareStatement(query)) {
 
-            logger.log(Level.INFO, "Executing query to retrieve all users: {0}", query);
-            while (rs.next()) {
-                users.add(new User(rs.getLong("id"), rs.getString("username"), rs.getString("email")));
+            long start = System.nanoTime();
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Executing query to retrieve {0} users after ID: {1}", new Object[]{limit, afterId});
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
             }
-            logger.log(Level.INFO, "Successfully retrieved {0} users from the database.", users.size());
+            pageMetrics.executed(start, users.size());
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to retrieve users. Query: " + query, e);
+            pageMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to retrieve users after ID: " + afterId);
             throw new DaoException("Failed to retrieve users", e);
         }
         return users;
     }
 
+    /**
+     * Streams every user to the handler in ID order from a forward-only, read-only cursor,
+     * so only one fetch window of rows is held in memory at a time.
+     *
+     * @return the number of rows handed to the handler
+     */
+    public long streamAllUsers(UserRowHandler handler) throws IOException {
+        return streamUsersAfter(Long.MIN_VALUE, handler);
+    }
+
+    /**
+     * Like {@link #streamAllUsers(UserRowHandler)}, but starting after the given ID, so an interrupted stream
+     * can be resumed from the last row received.
+     *
+     * @return the number of rows handed to the handler
+     */
+    public long streamUsersAfter(long afterId, UserRowHandler handler) throws IOException {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        String query = "SELECT id, username, email, version, updated_at FROM users WHERE id > ? ORDER BY id";
+        long rows = 0;
+        try (Connection conn = readConnection(streamMetrics);
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            long start = System.nanoTime();
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setLong(1, afterId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapUser(rs));
+                    rows++;
+                }
+            }
+            streamMetrics.executed(start, rows);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Streamed {0} users from the database.", rows);
+            }
+        } catch (IOException e) {
+            streamMetrics.failed(e);
+            throw e;
+        } catch (SQLException e) {
+            streamMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to stream users after ID: " + afterId);
+            throw new DaoException("Failed to stream users", e);
+        }
+        return rows;
+    }
+
 
     public User getUserById(Long id) {
+        return getUserById(id, false);
+    }
+
+    /**
+     * Reads a user from the primary even if the caller is not pinned, for values that are kept longer than a
+     * replica may lag behind, like cache entries: a row read from a replica right after a write could be stale.
+     */
+    public User getUserByIdFromPrimary(Long id) {
+        return getUserById(id, true);
+    }
+
+    private User getUserById(Long id, boolean fromPrimary) {
         if (id == null) {
             throw new IllegalArgumentException("ID cannot be null");
         }
         String query = "SELECT * FROM users WHERE id = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = fromPrimary ? getByIdMetrics.connect(dataSource) : readConnection(getByIdMetrics);
              PreparedStatement ps = conn.prepareStatement(query)) {
 
+            long start = System.nanoTime();
             ps.setLong(1, id);
-            logger.log(Level.INFO, "Executing query to retrieve user with ID: {0}", id);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                logger.log(Level.INFO, "User with ID: {0} retrieved successfully.", id);
-                return new User(rs.getLong("id"), rs.getString("username"), rs.getString("email"));
-            } else {
-                logger.log(Level.WARNING, "User with ID: {0} not found.", id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    User user = mapUser(rs);
+                    getByIdMetrics.executed(start, 1);
+                    return user;
+                }
+            }
+            getByIdMetrics.executed(start, 0);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "User with ID: {0} not found.", id);
             }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to retrieve user with ID: " + id, e);
+            getByIdMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to retrieve user with ID: " + id);
             throw new DaoException("Failed to retrieve user with ID: " + id, e);
         }
         return null;
     }
 
+    /**
+     * Reads only the version columns of a user, through the primary key, so a conditional GET can be answered
+     * without fetching the row.
+     *
+     * @return the version, or {@code null} if there is no such user
+     */
+    public UserVersion getUserVersion(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        String query = "SELECT version, updated_at FROM users WHERE id = ?";
+        try (Connection conn = readConnection(versionMetrics);
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            long start = System.nanoTime();
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                UserVersion version = rs.next()
+                        ? new UserVersion(id, rs.getLong("version"), toInstant(rs.getTimestamp("updated_at")))
+                        : null;
+                versionMetrics.executed(start, version != null ? 1 : 0);
+                return version;
+            }
+        } catch (SQLException e) {
+            versionMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to retrieve version of user with ID: " + id);
+            throw new DaoException("Failed to retrieve user version", e);
+        }
+    }
+
+    /**
+     * Aggregates the row count, highest ID, version sum and latest modification time of the table in one query.
+     */
+    public UserCollectionVersion getCollectionVersion() {
+        String query = "SELECT COUNT(*), MAX(id), SUM(version), MAX(updated_at) FROM users";
+        try (Connection conn = readConnection(collectionVersionMetrics);
+             Statement stmt = conn.createStatement()) {
+
+            long start = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                rs.next();
+                UserCollectionVersion version = new UserCollectionVersion(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        toInstant(rs.getTimestamp(4)));
+                collectionVersionMetrics.executed(start, 1);
+                return version;
+            }
+        } catch (SQLException e) {
+            collectionVersionMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to retrieve users collection version. Query: " + query);
+            throw new DaoException("Failed to retrieve users collection version", e);
+        }
+    }
+
     public void createUser(User user) {
+        createUser(user, List.of());
+    }
+
+    /**
+     * Inserts the user and its outbox events in one transaction, so the notifications exist if and only if
+     * the user row does. The generated ID is stored on the user.
+     */
+    public void createUser(User user, List<OutboxEvent> events) {
         if (user == null || user.getUsername() == null || user.getEmail() == null) {
             throw new IllegalArgumentException("User and its properties cannot be null");
         }
 
-        String query = "INSERT INTO users (username, email) VALUES (?, ?)";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
-
-            ps.setString(1, user.getUsername());
-            ps.setString(2, user.getEmail());
-            logger.log(Level.INFO, "Executing query to create user: {0}", user);
-            ps.executeUpdate();
-            logger.log(Level.INFO, "User created successfully: {0}", user);
+        String query = INSERT_USER;
+        try (Connection conn = createMetrics.connect(dataSource)) {
+            long start = System.nanoTime();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(ps, user);
+                int rowsInserted = ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        user.setId(keys.getLong(1));
+                    }
+                }
+                OutboxDao.insertEvents(conn, events);
+                conn.commit();
+                ReadYourWrites.recordWrite();
+                createMetrics.executed(start, rowsInserted);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "User created: {0}", user);
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to create user: " + user, e);
+            createMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to create user: " + user);
             throw new DaoException("Failed to create user", e);
         }
     }
 
+    public List<UserBatchResult> createUsers(List<User> users, int firstIndex) {
+        return createUsers(users, firstIndex, created -> List.of());
+    }
+
+    /**
+     * Inserts the users as one JDBC batch in a single transaction, storing the generated IDs on the users.
+     * If the batch is rejected (e.g. one duplicate row) it is rolled back and the rows are retried one by one,
+     * so each row gets its own outcome. The outbox events for the users that were created are written in the
+     * same transaction, so they exist if and only if those rows do.
+     *
+     * @param users      the rows to insert; all must have a username and an email
+     * @param firstIndex position of the first row in the overall request, used for the results
+     * @param events     the outbox events for the created users, called once they are known
+     * @return one result per row, in order
+     */
+    public List<UserBatchResult> createUsers(List<User> users, int firstIndex,
+                                             Function<List<User>, List<OutboxEvent>> events) {
+        if (users == null || users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String query = INSERT_USER;
+        try (Connection conn = createBatchMetrics.connect(dataSource)) {
+            long start = System.nanoTime();
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                List<UserBatchResult> results = insertBatch(conn, query, users, firstIndex);
+                OutboxDao.insertEvents(conn, events.apply(users));
+                conn.commit();
+                ReadYourWrites.recordWrite();
+                createBatchMetrics.executed(start, users.size());
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "Created {0} users in one batch.", users.size());
+                }
+                return results;
+            } catch (BatchUpdateException e) {
+                conn.rollback();
+                createBatchMetrics.failed(e);
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Batch insert of {0} users rejected, retrying row by row: {1}",
+                            new Object[]{users.size(), e.getMessage()});
+                }
+                List<UserBatchResult> results;
+                List<User> created = new ArrayList<>(users.size());
+                try {
+                    results = insertRowByRow(conn, query, users, firstIndex);
+                    for (int i = 0; i < users.size(); i++) {
+                        if (UserBatchResult.CREATED.equals(results.get(i).getStatus())) {
+                            created.add(users.get(i));
+                        }
+                    }
+                    OutboxDao.insertEvents(conn, events.apply(created));
+                    conn.commit();
+                } catch (SQLException | RuntimeException retryError) {
+                    conn.rollback();
+                    throw retryError;
+                }
+                ReadYourWrites.recordWrite();
+                createBatchMetrics.executed(start, created.size());
+                return results;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            createBatchMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to create batch of " + users.size() + " users");
+            throw new DaoException("Failed to create users", e);
+        }
+    }
+
+    /**
+     * Inserts new users and updates the email of existing ones, matched by username, as one JDBC batch in a
+     * single transaction. Like {@link #createUsers(List, int)}, a rejected batch is rolled back and retried row
+     * by row so each row gets its own outcome. No outbox events are written.
+     *
+     * @param users      the rows to upsert; all must have a username and an email
+     * @param firstIndex position of the first row in the overall request, used for the results
+     * @return one result per row, in order
+     */
+    public List<UserBatchResult> upsertUsers(List<User> users, int firstIndex) {
+        if (users == null || users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = upsertBatchMetrics.connect(dataSource)) {
+            long start = System.nanoTime();
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(UPSERT_USER)) {
+                    for (User user : users) {
+                        bindInsert(ps, user);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+                ReadYourWrites.recordWrite();
+                upsertBatchMetrics.executed(start, users.size());
+                List<UserBatchResult> results = new ArrayList<>(users.size());
+                for (int i = 0; i < users.size(); i++) {
+                    results.add(UserBatchResult.upserted(firstIndex + i, users.get(i)));
+                }
+                return results;
+            } catch (BatchUpdateException e) {
+                conn.rollback();
+                upsertBatchMetrics.failed(e);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "Batch upsert of {0} users rejected, retrying row by row: {1}",
+                            new Object[]{users.size(), e.getMessage()});
+                }
+                conn.setAutoCommit(true);
+                List<UserBatchResult> results = new ArrayList<>(users.size());
+                try (PreparedStatement ps = conn.prepareStatement(UPSERT_USER)) {
+                    for (int i = 0; i < users.size(); i++) {
+                        User user = users.get(i);
+                        try {
+                            bindInsert(ps, user);
+                            ps.executeUpdate();
+                            results.add(UserBatchResult.upserted(firstIndex + i, user));
+                        } catch (SQLException rowError) {
+                            upsertBatchMetrics.failed(rowError);
+                            results.add(UserBatchResult.failed(firstIndex + i, user, rowError.getMessage()));
+                        }
+                    }
+                }
+                ReadYourWrites.recordWrite();
+                upsertBatchMetrics.executed(start, results.stream().filter(r -> UserBatchResult.UPSERTED.equals(r.getStatus())).count());
+                return results;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            upsertBatchMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to upsert batch of " + users.size() + " users");
+            throw new DaoException("Failed to upsert users", e);
+        }
+    }
+
+    private List<UserBatchResult> insertBatch(Connection conn, String query, List<User> users, int firstIndex)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            for (User user : users) {
+                bindInsert(ps, user);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            List<UserBatchResult> results = new ArrayList<>(users.size());
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int i = 0; i < users.size(); i++) {
+                    User user = users.get(i);
+                    if (keys.next()) {
+                        user.setId(keys.getLong(1));
+                    }
+                    results.add(UserBatchResult.created(firstIndex + i, user));
+                }
+            }
+            return results;
+        }
+    }
+
+    private List<UserBatchResult> insertRowByRow(Connection conn, String query, List<User> users, int firstIndex)
+            throws SQLException {
+        List<UserBatchResult> results = new ArrayList<>(users.size());
+        try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                // A rejected row is undone on its own and the transaction goes on with the next one
+                Savepoint row = conn.setSavepoint();
+                try {
+                    bindInsert(ps, user);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            user.setId(keys.getLong(1));
+                        }
+                    }
+                    conn.releaseSavepoint(row);
+                    results.add(UserBatchResult.created(firstIndex + i, user));
+                } catch (SQLException e) {
+                    conn.rollback(row);
+                    createBatchMetrics.failed(e);
+                    results.add(UserBatchResult.failed(firstIndex + i, user, e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
     public boolean updateUser(Long id, User user) {
         if (id == null || user == null) {
             throw new IllegalArgumentException("ID and User cannot be null");
         }
 
-        String query = "UPDATE users SET username = ?, email = ? WHERE id = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+        try (Connection conn = updateMetrics.connect(dataSource);
+             PreparedStatement ps = conn.prepareStatement(UPDATE_USER)) {
 
-            ps.setString(1, user.getUsername());
-            ps.setString(2, user.getEmail());
-            ps.setLong(3, id);
-            logger.log(Level.INFO, "Executing query to update user with ID: {0}, New Data: {1}", new Object[]{id, user});
+            long start = System.nanoTime();
+            bindUpdate(ps, id, user);
 
             int rowsUpdated = ps.executeUpdate();
+            ReadYourWrites.recordWrite();
+            updateMetrics.executed(start, rowsUpdated);
             if (rowsUpdated > 0) {
-                logger.log(Level.INFO, "User with ID: {0} updated successfully.", id);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "User with ID: {0} updated, new data: {1}", new Object[]{id, user});
+                }
                 return true;
-            } else {
-                logger.log(Level.WARNING, "User with ID: {0} not found. Update failed.", id);
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "User with ID: {0} not found. Update failed.", id);
             }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to update user with ID: " + id, e);
+            updateMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to update user with ID: " + id);
             throw new DaoException("Failed to update user", e);
         }
         return false;
     }
 
+    /**
+     * Updates many users, each identified by its {@link User#getId()}, as one JDBC batch in a single transaction.
+     * A rejected batch is rolled back and retried row by row, so each row gets its own outcome.
+     *
+     * @param users the rows to update; all must have an ID, a username and an email
+     * @return one result per row, in order: {@code UPDATED}, {@code NOT_FOUND} or {@code FAILED}
+     */
+    public List<UserBatchResult> updateUsers(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = updateBatchMetrics.connect(dataSource)) {
+            long start = System.nanoTime();
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                int[] counts;
+                try (PreparedStatement ps = conn.prepareStatement(UPDATE_USER)) {
+                    for (User user : users) {
+                        bindUpdate(ps, user.getId(), user);
+                        ps.addBatch();
+                    }
+                    counts = ps.executeBatch();
+                }
+                conn.commit();
+                ReadYourWrites.recordWrite();
+                List<UserBatchResult> results = new ArrayList<>(users.size());
+                long updated = 0;
+                for (int i = 0; i < users.size(); i++) {
+                    // SUCCESS_NO_INFO: the driver rewrote the batch and cannot tell, so the row is taken as updated
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        results.add(UserBatchResult.updated(i, users.get(i)));
+                        updated++;
+                    } else {
+                        results.add(UserBatchResult.notFound(i, users.get(i)));
+                    }
+                }
+                updateBatchMetrics.executed(start, updated);
+                return results;
+            } catch (BatchUpdateException e) {
+                conn.rollback();
+                updateBatchMetrics.failed(e);
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "Batch update of {0} users rejected, retrying row by row: {1}",
+                            new Object[]{users.size(), e.getMessage()});
+                }
+                conn.setAutoCommit(true);
+                List<UserBatchResult> results = new ArrayList<>(users.size());
+                long updated = 0;
+                try (PreparedStatement ps = conn.prepareStatement(UPDATE_USER)) {
+                    for (int i = 0; i < users.size(); i++) {
+                        User user = users.get(i);
+                        try {
+                            bindUpdate(ps, user.getId(), user);
+                            if (ps.executeUpdate() > 0) {
+                                results.add(UserBatchResult.updated(i, user));
+                                updated++;
+                            } else {
+                                results.add(UserBatchResult.notFound(i, user));
+                            }
+                        } catch (SQLException rowError) {
+                            updateBatchMetrics.failed(rowError);
+                            results.add(UserBatchResult.failed(i, user, rowError.getMessage()));
+                        }
+                    }
+                }
+                ReadYourWrites.recordWrite();
+                updateBatchMetrics.executed(start, updated);
+                return results;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            updateBatchMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to update batch of " + users.size() + " users");
+            throw new DaoException("Failed to update users", e);
+        }
+    }
+
+    private void bindUpdate(PreparedStatement ps, Long id, User user) throws SQLException {
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getEmail());
+        ps.setTimestamp(3, Timestamp.from(now()));
+        ps.setLong(4, id);
+    }
+
     public boolean deleteUser(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("ID cannot be null");
         }
 
         String query = "DELETE FROM users WHERE id = ?";
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = deleteMetrics.connect(dataSource);
              PreparedStatement ps = conn.prepareStatement(query)) {
 
+            long start = System.nanoTime();
             ps.setLong(1, id);
-            logger.log(Level.INFO, "Executing query to delete user with ID: {0}", id);
 
             int rowsDeleted = ps.executeUpdate();
+            ReadYourWrites.recordWrite();
+            deleteMetrics.executed(start, rowsDeleted);
             if (rowsDeleted > 0) {
-                logger.log(Level.INFO, "User with ID: {0} deleted successfully.", id);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "User with ID: {0} deleted.", id);
+                }
                 return true;
-            } else {
-                logger.log(Level.WARNING, "User with ID: {0} not found. Deletion failed.", id);
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "User with ID: {0} not found. Deletion failed.", id);
             }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Failed to delete user with ID: " + id, e);
+            deleteMetrics.failed(e);
+            logger.log(Level.SEVERE, e, () -> "Failed to delete user with ID: " + id);
             throw new DaoException("Failed to delete user", e);
         }
         return false;
     }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User(rs.getLong("id"), rs.getString("username"), rs.getString("email"));
+        user.setVersion(rs.getLong("version"));
+        user.setUpdatedAt(toInstant(rs.getTimestamp("updated_at")));
+        return user;
+    }
+
+    /**
+     * Binds a new row to {@link #INSERT_USER} and stamps the user with its initial version.
+     */
+    private static void bindInsert(PreparedStatement ps, User user) throws SQLException {
+        Instant now = now();
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getEmail());
+        ps.setTimestamp(3, Timestamp.from(now));
+        user.setVersion(1L);
+        user.setUpdatedAt(now);
+    }
+
+    // updated_at is TIMESTAMP(3)
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
 }
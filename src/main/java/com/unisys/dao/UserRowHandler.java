@@ -0,0 +1,13 @@
+package com.unisys.dao;
+
+import com.unisys.model.User;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving users one row at a time while a result set is being read.
+ */
+@FunctionalInterface
+public interface UserRowHandler {
+    void handle(User user) throws IOException;
+}
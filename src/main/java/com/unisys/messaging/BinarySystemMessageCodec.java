@@ -0,0 +1,89 @@
+package com.unisys.messaging;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.unisys.model.SystemMessage;
+
+/**
+ * Compact length-prefixed binary form:
+ * <pre>
+ *   version:int8  source:field  message:field
+ *   field = length:int32 (-1 for null) followed by that many UTF-8 bytes
+ * </pre>
+ */
+public class BinarySystemMessageCodec implements SystemMessageCodec {
+
+    public static final String NAME = "binary";
+    private static final byte VERSION = 1;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(SystemMessage systemMessage) {
+        byte[] source = utf8(systemMessage.getSource());
+        byte[] message = utf8(systemMessage.getMessage());
+        ByteBuffer buffer = ByteBuffer.allocate(1 + fieldSize(source) + fieldSize(message));
+        buffer.put(VERSION);
+        putField(buffer, source);
+        putField(buffer, message);
+        return buffer.array();
+    }
+
+    @Override
+    public SystemMessage decode(byte[] body) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary SystemMessage version " + version);
+            }
+            SystemMessage systemMessage = new SystemMessage();
+            systemMessage.setSource(getField(buffer));
+            systemMessage.setMessage(getField(buffer));
+            return systemMessage;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt binary SystemMessage", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int fieldSize(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getField(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.unisys.messaging;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.unisys.model.SystemMessage;
+
+/**
+ * JSON form, sent as a {@code TextMessage} so it stays readable in broker consoles and by non-Java consumers.
+ */
+public class JsonSystemMessageCodec implements SystemMessageCodec {
+
+    public static final String NAME = "json";
+    private static final int VERSION = 1;
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public JsonSystemMessageCodec(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(SystemMessage.class);
+        this.reader = objectMapper.readerFor(SystemMessage.class);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean isText() {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(SystemMessage systemMessage) throws IOException {
+        return writer.writeValueAsBytes(systemMessage);
+    }
+
+    @Override
+    public SystemMessage decode(byte[] body) throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.unisys.messaging;
+
+import java.io.IOException;
+
+import com.unisys.model.SystemMessage;
+
+/**
+ * Wire format for {@link SystemMessage} bodies.
+ * <p>
+ * Senders stamp the codec {@link #name()} and {@link #version()} on every message as the {@code codec} and
+ * {@code codecVersion} properties, so receivers pick the matching decoder and nodes on different releases can
+ * exchange messages during a rollout.
+ * </p>
+ */
+public interface SystemMessageCodec {
+
+    String name();
+
+    int version();
+
+    /**
+     * Whether the body is text and travels as a {@code TextMessage} rather than a {@code BytesMessage}.
+     */
+    default boolean isText() {
+        return false;
+    }
+
+    byte[] encode(SystemMessage systemMessage) throws IOException;
+
+    SystemMessage decode(byte[] body) throws IOException;
+}
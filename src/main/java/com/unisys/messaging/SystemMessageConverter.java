@@ -0,0 +1,114 @@
+package com.unisys.messaging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.model.SystemMessage;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+
+/**
+ * Converts {@link SystemMessage} to and from JMS messages.
+ * <p>
+ * Outgoing messages use the codec named by {@code jms.message.codec}: {@code object} (default, the legacy
+ * Java-serialized {@code ObjectMessage}), {@code binary} (a {@code BytesMessage}) or {@code json} (a
+ * {@code TextMessage}). Incoming messages are decoded according to their {@code codec} header, and
+ * {@code ObjectMessage}s are still accepted, so nodes on old and new releases interoperate.
+ * </p>
+ * <p>
+ * Older consumers only understand {@code ObjectMessage}s, which is why {@code object} stays the default. Switch to
+ * {@code binary} in a release after the one that introduced this converter, once every node that consumes the
+ * queues and topics runs it; switching back is safe at any time.
+ * </p>
+ */
+@Component
+public class SystemMessageConverter implements MessageConverter {
+
+    public static final String CODEC_PROPERTY = "codec";
+    public static final String CODEC_VERSION_PROPERTY = "codecVersion";
+    private static final String OBJECT = "object";
+
+    private final Map<String, SystemMessageCodec> codecs;
+    private final String outboundCodec;
+
+    public SystemMessageConverter(ObjectMapper objectMapper,
+                                  @Value("${jms.message.codec:object}") String outboundCodec) {
+        this.codecs = Map.of(
+                BinarySystemMessageCodec.NAME, new BinarySystemMessageCodec(),
+                JsonSystemMessageCodec.NAME, new JsonSystemMessageCodec(objectMapper));
+        if (!OBJECT.equals(outboundCodec) && !codecs.containsKey(outboundCodec)) {
+            throw new IllegalArgumentException("Unknown jms.message.codec: " + outboundCodec);
+        }
+        this.outboundCodec = outboundCodec;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException {
+        if (!(object instanceof SystemMessage systemMessage)) {
+            throw new MessageConversionException("Cannot convert " + object + " to a SystemMessage");
+        }
+        if (OBJECT.equals(outboundCodec)) {
+            return session.createObjectMessage(systemMessage);
+        }
+        SystemMessageCodec codec = codecs.get(outboundCodec);
+        byte[] body;
+        try {
+            body = codec.encode(systemMessage);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to encode " + systemMessage, e);
+        }
+        Message message;
+        if (codec.isText()) {
+            message = session.createTextMessage(new String(body, StandardCharsets.UTF_8));
+        } else {
+            BytesMessage bytesMessage = session.createBytesMessage();
+            bytesMessage.writeBytes(body);
+            message = bytesMessage;
+        }
+        message.setStringProperty(CODEC_PROPERTY, codec.name());
+        message.setIntProperty(CODEC_VERSION_PROPERTY, codec.version());
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException {
+        if (message instanceof ObjectMessage objectMessage) {
+            return objectMessage.getObject();
+        }
+        String codecName = message.getStringProperty(CODEC_PROPERTY);
+        try {
+            if (message instanceof BytesMessage bytesMessage) {
+                byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                return codec(codecName, BinarySystemMessageCodec.NAME).decode(body);
+            }
+            if (message instanceof TextMessage textMessage) {
+                return codec(codecName, JsonSystemMessageCodec.NAME)
+                        .decode(textMessage.getText().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode " + codecName + " SystemMessage", e);
+        }
+        throw new MessageConversionException("Unsupported message type " + message.getClass().getName());
+    }
+
+    private SystemMessageCodec codec(String name, String defaultName) {
+        SystemMessageCodec codec = codecs.get(name != null ? name : defaultName);
+        if (codec == null) {
+            throw new MessageConversionException("Unknown SystemMessage codec " + name);
+        }
+        return codec;
+    }
+}
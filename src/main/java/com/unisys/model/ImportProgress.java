@@ -0,0 +1,96 @@
+package com.unisys.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one bulk import, updated by the importing request and readable by others while it runs.
+ * Only the first {@code maxErrors} line errors are kept; {@code failed} counts all of them.
+ */
+public class ImportProgress {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+    private final String format;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong upserted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<LineError> errors = new ArrayList<>();
+    private final int maxErrors;
+    private volatile String state = RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    public ImportProgress(String id, String format, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void lineRead() {
+        linesRead.incrementAndGet();
+    }
+
+    public void upserted(int rows) {
+        upserted.addAndGet(rows);
+    }
+
+    public void lineFailed(long line, String message) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+    }
+
+    public void complete() {
+        finishedAt = Instant.now();
+        state = COMPLETED;
+    }
+
+    public void fail(String reason) {
+        failure = reason;
+        finishedAt = Instant.now();
+        state = FAILED;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getFormat() { return format; }
+    public String getState() { return state; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public long getLinesRead() { return linesRead.get(); }
+    public long getUpserted() { return upserted.get(); }
+    public long getFailed() { return failed.get(); }
+    public String getFailure() { return failure; }
+
+    public List<LineError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /**
+     * A rejected input line: its 1-based line number and why it was rejected.
+     */
+    public static class LineError {
+        private final long line;
+        private final String message;
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,53 @@
+package com.unisys.model;
+
+import java.time.Instant;
+
+/**
+ * A notification recorded in the {@code user_outbox} table in the same transaction as the user write
+ * that caused it, and delivered later by the outbox dispatcher.
+ */
+public class OutboxEvent {
+
+    public static final String WELCOME_EMAIL = "WELCOME_EMAIL";
+    public static final String SYSTEM_MESSAGE = "SYSTEM_MESSAGE";
+    public static final String EMAIL = "EMAIL"; // Any email that could not be sent right away
+
+    private Long id;
+    private String type;
+    private String destination; // Email recipient, or message source for system messages
+    private String subject;
+    private String body;
+    private int attempts;
+    private Instant createdAt;
+    private boolean dispatched;
+    private boolean deferred; // Not attempted because a circuit breaker refused the call
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String type, String destination, String subject, String body) {
+        this.type = type;
+        this.destination = destination;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public boolean isDispatched() { return dispatched; }
+    public void setDispatched(boolean dispatched) { this.dispatched = dispatched; }
+    public boolean isDeferred() { return deferred; }
+    public void setDeferred(boolean deferred) { this.deferred = deferred; }
+}
@@ -1,9 +1,27 @@
 package com.unisys.model;
 
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
 public class User {
     private Long id;
+    @NotBlank(message = "Username is required.")
+    @Size(max = 255, message = "Username must be at most 255 characters.")
     private String username;
+    @NotBlank(message = "Email is required.")
+    @Email(message = "Email must be a valid email address.")
+    @Size(max = 255, message = "Email must be at most 255 characters.")
     private String email;
+    // Maintained by UserDao and exposed through the ETag and Last-Modified headers, not the JSON body
+    @JsonIgnore
+    private Long version;
+    @JsonIgnore
+    private Instant updatedAt;
 
     public User() {}
 
@@ -20,4 +38,8 @@ public class User {
     public void setUsername(String username) { this.username = username; }
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
-} 
\ No newline at end of file
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.unisys.model;
+
+/**
+ * Outcome of one row of a bulk user request: the generated ID when the row was stored,
+ * or the reason it was rejected.
+ */
+public class UserBatchResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPSERTED = "UPSERTED";
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private Long id;
+    private String username;
+    private String status;
+    private String error;
+
+    public UserBatchResult() {}
+
+    public UserBatchResult(int index, Long id, String username, String status, String error) {
+        this.index = index;
+        this.id = id;
+        this.username = username;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static UserBatchResult created(int index, User user) {
+        return new UserBatchResult(index, user.getId(), user.getUsername(), CREATED, null);
+    }
+
+    public static UserBatchResult upserted(int index, User user) {
+        return new UserBatchResult(index, user.getId(), user.getUsername(), UPSERTED, null);
+    }
+
+    public static UserBatchResult updated(int index, User user) {
+        return new UserBatchResult(index, user.getId(), user.getUsername(), UPDATED, null);
+    }
+
+    public static UserBatchResult notFound(int index, User user) {
+        return new UserBatchResult(index, user.getId(), user.getUsername(), NOT_FOUND, null);
+    }
+
+    public static UserBatchResult failed(int index, User user, String error) {
+        return new UserBatchResult(index, null, user != null ? user.getUsername() : null, FAILED, error);
+    }
+
+    // Getters and setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
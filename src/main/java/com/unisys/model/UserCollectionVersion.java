@@ -0,0 +1,26 @@
+package com.unisys.model;
+
+import java.time.Instant;
+
+/**
+ * Aggregate state of the users table used as the collection ETag. Any insert changes the row count or the highest ID,
+ * any delete the row count, and any update the sum of the row versions and usually the last modification time.
+ */
+public class UserCollectionVersion {
+    private final long count;
+    private final long maxId;
+    private final long versionSum;
+    private final Instant lastModified;
+
+    public UserCollectionVersion(long count, long maxId, long versionSum, Instant lastModified) {
+        this.count = count;
+        this.maxId = maxId;
+        this.versionSum = versionSum;
+        this.lastModified = lastModified;
+    }
+
+    public long getCount() { return count; }
+    public long getMaxId() { return maxId; }
+    public long getVersionSum() { return versionSum; }
+    public Instant getLastModified() { return lastModified; }
+}
@@ -0,0 +1,25 @@
+package com.unisys.model;
+
+import java.util.List;
+
+/**
+ * One keyset page of users. {@code next} holds the link to the following page,
+ * or {@code null} once the last page has been reached.
+ */
+public class UserPage {
+    private List<User> users;
+    private String next;
+
+    public UserPage() {}
+
+    public UserPage(List<User> users, String next) {
+        this.users = users;
+        this.next = next;
+    }
+
+    // Getters and setters
+    public List<User> getUsers() { return users; }
+    public void setUsers(List<User> users) { this.users = users; }
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
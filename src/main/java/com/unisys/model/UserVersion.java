@@ -0,0 +1,22 @@
+package com.unisys.model;
+
+import java.time.Instant;
+
+/**
+ * The version and last modification time of one user row, which is all a conditional GET needs.
+ */
+public class UserVersion {
+    private final long id;
+    private final long version;
+    private final Instant updatedAt;
+
+    public UserVersion(long id, long version, Instant updatedAt) {
+        this.id = id;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getId() { return id; }
+    public long getVersion() { return version; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
@@ -4,31 +4,35 @@ package com.unisys.scheduler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import com.unisys.dao.UserDao;
 import com.unisys.service.EmailService;
+import com.unisys.service.UserCountSnapshot;
 
 @Component
 public class StudentScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(StudentScheduler.class);
 
-    private final UserDao userDao = new UserDao(); // DAO for database operations
+    private final UserCountSnapshot userCount; // Shared, cached student count
 
-    @Autowired
-    private EmailService emailService; // Service for sending emails
+    private final EmailService emailService; // Service for sending emails
 
     private static final int STUDENT_THRESHOLD = 15;
+
+    public StudentScheduler(UserCountSnapshot userCount, EmailService emailService) {
+        this.userCount = userCount;
+        this.emailService = emailService;
+    }
+
     /**
      * Task 1: Log the number of students every minute.
      */
     @Scheduled(fixedRate = 60000) // Every 60 seconds
     public void logStudentCount() {
         try {
-            int studentCount = userDao.getAllUsers().size();
+            long studentCount = userCount.getCount();
             logger.info("Current number of students: {}", studentCount);
         } catch (Exception e) {
             logger.error("Error while retrieving student count: {}", e.getMessage(), e);
@@ -41,14 +45,15 @@ public class StudentScheduler {
     @Scheduled(fixedRate = 300000) // Every 5 minutes
     public void notifyOnThreshold() {
         try {
-            int studentCount = userDao.getAllUsers().size();
+            long studentCount = userCount.getCount();
             if (studentCount > STUDENT_THRESHOLD) {
                 String subject = "Student Threshold Alert";
                 String message = "The number of students has exceeded the threshold of " + STUDENT_THRESHOLD +
                         ". Current count: " + studentCount;
 
-                emailService.sendEmail("puttupatil49294929@gmail.com", subject, message);
-                logger.info("Threshold alert email sent.");
+                // Parked for the outbox dispatcher while the mail server is down, instead of lost until the next run
+                boolean sent = emailService.sendEmailOrDefer("puttupatil49294929@gmail.com", subject, message);
+                logger.info(sent ? "Threshold alert email sent." : "Threshold alert email deferred.");
             }
         } catch (Exception e) {
             logger.error("Error while sending threshold alert: {}", e.getMessage(), e);
@@ -10,6 +10,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.unisys.tracing.Trace;
 
 @Component
 @Aspect
@@ -19,11 +20,18 @@ public class AccessControlAspect {
 
     @Around("@annotation(requiresAccessControl)")
     public Object checkAccessControl(ProceedingJoinPoint joinPoint, RequiresAccessControl requiresAccessControl) throws Throwable {
+        long start = System.nanoTime();
         String requiredRole = requiresAccessControl.role();
         String currentUserRole = getCurrentUserRole();
+        boolean permitted = currentUserRole.equalsIgnoreCase(requiredRole);
+
+        Trace trace = Trace.current();
+        if (trace != null) {
+            trace.record("access", requiredRole, start, System.nanoTime());
+        }
 
         // Check if the user role matches the required role
-        if (!currentUserRole.equalsIgnoreCase(requiredRole)) {
+        if (!permitted) {
             logger.warn("Access denied. User role '{}' does not have permission to perform this action. Required role: '{}'",
                     currentUserRole, requiredRole);
             throw new SecurityException("Access denied! Only users with the role '" + requiredRole + "' can perform this action.");
@@ -41,7 +49,7 @@ public class AccessControlAspect {
             logger.warn("Missing or empty X-Role header. Defaulting to 'USER'.");
             return "USER"; // Default to "USER" if no role is specified
         }
-        logger.info("Retrieved role from X-Role header: {}", role);
+        logger.debug("Retrieved role from X-Role header: {}", role);
         return role;
     }
 }
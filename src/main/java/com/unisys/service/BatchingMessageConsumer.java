@@ -0,0 +1,259 @@
+package com.unisys.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import com.unisys.messaging.SystemMessageConverter;
+import com.unisys.model.SystemMessage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+/**
+ * Batch-consuming listener for {@code myqueue}, enabled with {@code jms.consumer.batch.enabled=true}.
+ * <p>
+ * Each consumer drains up to {@code jms.consumer.batch.size} messages, or whatever arrives within
+ * {@code jms.consumer.batch.timeout-ms} of the first one, and processes them under one transacted session: the batch
+ * is committed once, or rolled back as a whole. After a failed batch the consumer takes the next batch's worth of
+ * messages, i.e. the redelivered ones, one at a time, each committed on its own, so only a poison message is
+ * redelivered again and eventually dead-lettered by the broker. Consumers scale within {@code jms.consumer.concurrency}
+ * ({@code min-max}): a full batch means a backlog and starts another consumer, and a consumer above the minimum that
+ * stays idle for {@code jms.consumer.batch.idle-limit} receives retires.
+ * </p>
+ * <p>
+ * Consumers use the broker's own connection factory, not Spring Boot's {@code CachingConnectionFactory} around it,
+ * which would keep a retired consumer open with its prefetched messages. Each consumer prefetches at most one batch.
+ * </p>
+ * <p>
+ * Metrics: {@code jms.consumer.lag}, {@code jms.consumer.processing} (per message), {@code jms.consumer.batch.size}
+ * and {@code jms.consumer.active}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "jms.consumer.batch.enabled", havingValue = "true")
+public class BatchingMessageConsumer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingMessageConsumer.class);
+    private static final String QUEUE = "myqueue";
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final ConnectionFactory connectionFactory;
+    private final SystemMessageConverter messageConverter;
+    private final Timer lagTimer;
+    private final Timer processingTimer;
+    private final DistributionSummary batchSizes;
+    private final AtomicInteger activeConsumers = new AtomicInteger();
+
+    @Value("${jms.consumer.concurrency:5-10}")
+    private String concurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${jms.consumer.batch.size:100}")
+    private int batchSize;
+
+    @Value("${jms.consumer.batch.timeout-ms:200}")
+    private long batchTimeoutMillis;
+
+    @Value("${jms.consumer.batch.idle-limit:10}")
+    private int idleLimit;
+
+    private int minConsumers;
+    private int maxConsumers;
+    private ExecutorService executor;
+    private Connection connection;
+    private volatile boolean running;
+
+    public BatchingMessageConsumer(ConnectionFactory connectionFactory, SystemMessageConverter messageConverter,
+                                   MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory instanceof SingleConnectionFactory single
+                && single.getTargetConnectionFactory() != null ? single.getTargetConnectionFactory() : connectionFactory;
+        this.messageConverter = messageConverter;
+        this.lagTimer = MessageConsumer.consumerLagTimer(meterRegistry);
+        this.processingTimer = MessageConsumer.processingTimer(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("jms.consumer.batch.size")
+                .description("Messages processed per batch")
+                .tag("queue", QUEUE)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("jms.consumer.active", activeConsumers, AtomicInteger::get)
+                .description("Running batch consumers")
+                .tag("queue", QUEUE)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        String[] range = concurrency.split("-");
+        minConsumers = Integer.parseInt(range[0].trim());
+        maxConsumers = range.length > 1 ? Integer.parseInt(range[1].trim()) : minConsumers;
+        executor = Executors.newThreadPerTaskExecutor(virtualThreads
+                ? Thread.ofVirtual().name("jms-batch-consumer-", 1).factory()
+                : Thread.ofPlatform().name("jms-batch-consumer-", 1).daemon().factory());
+        running = true;
+        for (int i = 0; i < minConsumers; i++) {
+            startConsumer();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(batchTimeoutMillis + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeConnection();
+    }
+
+    private void startConsumer() {
+        int active = activeConsumers.get();
+        if (active < maxConsumers && activeConsumers.compareAndSet(active, active + 1)) {
+            executor.execute(this::consume);
+        }
+    }
+
+    private void consume() {
+        boolean retired = false;
+        try {
+            while (running) {
+                try (Session session = connection().createSession(true, Session.SESSION_TRANSACTED);
+                     jakarta.jms.MessageConsumer consumer = session.createConsumer(
+                             session.createQueue(QUEUE + "?consumer.prefetchSize=" + batchSize))) {
+                    if (!consumeBatches(session, consumer)) {
+                        retired = true;
+                        return;
+                    }
+                } catch (JMSException e) {
+                    LOGGER.warn("Batch consumer lost its session, reconnecting: {}", e.getMessage());
+                    closeConnection();
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!retired) {
+                activeConsumers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if this consumer retired because it was idle
+     */
+    private boolean consumeBatches(Session session, jakarta.jms.MessageConsumer consumer) throws JMSException {
+        int idleReceives = 0;
+        int singleMessages = 0;
+        while (running) {
+            List<Message> batch = receiveBatch(consumer, singleMessages > 0 ? 1 : batchSize);
+            if (batch.isEmpty()) {
+                if (++idleReceives >= idleLimit && retireIfAboveMinimum()) {
+                    return false;
+                }
+                continue;
+            }
+            idleReceives = 0;
+            if (singleMessages > 0) {
+                singleMessages--;
+            }
+            try {
+                for (Message message : batch) {
+                    lagTimer.record(Duration.between(Instant.ofEpochMilli(message.getJMSTimestamp()), Instant.now()));
+                    SystemMessage systemMessage = (SystemMessage) messageConverter.fromMessage(message);
+                    processingTimer.record(() -> MessageConsumer.handle(systemMessage));
+                }
+                session.commit();
+                batchSizes.record(batch.size());
+            } catch (RuntimeException | JMSException e) {
+                LOGGER.error("Failed to process batch of {} messages, rolling back: {}", batch.size(), e.getMessage(), e);
+                session.rollback();
+                if (batch.size() > 1) {
+                    // Keeps the good messages of the batch from sharing the poison message's redeliveries
+                    singleMessages = batch.size();
+                }
+            }
+            if (batch.size() >= batchSize) {
+                startConsumer();
+            }
+        }
+        return true;
+    }
+
+    private List<Message> receiveBatch(jakarta.jms.MessageConsumer consumer, int maxSize) throws JMSException {
+        List<Message> batch = new ArrayList<>(maxSize);
+        Message first = consumer.receive(batchTimeoutMillis);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + batchTimeoutMillis;
+        while (batch.size() < maxSize) {
+            long remaining = deadline - System.currentTimeMillis();
+            Message next = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private boolean retireIfAboveMinimum() {
+        int active;
+        while ((active = activeConsumers.get()) > minConsumers) {
+            if (activeConsumers.compareAndSet(active, active - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Connection connection() throws JMSException {
+        if (connection == null) {
+            connection = connectionFactory.createConnection();
+            connection.setExceptionListener(e -> {
+                LOGGER.warn("Batch consumer connection failed: {}", e.getMessage());
+                closeConnection();
+            });
+            connection.start();
+        }
+        return connection;
+    }
+
+    private synchronized void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (JMSException e) {
+                LOGGER.debug("Error closing batch consumer connection: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.unisys.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+
+/**
+ * Background health probe of the ActiveMQ broker, reported as the {@code jms} health component in place of Spring
+ * Boot's per-request one.
+ * <p>
+ * Every {@code health.probes.interval-ms} it opens and starts a connection and reads the provider name. If the
+ * broker does not answer, the probe blocks only its own thread and the cached result turns stale.
+ * </p>
+ */
+@Component("jmsHealthIndicator")
+public class BrokerHealthIndicator extends CachedHealthIndicator {
+
+    private final ConnectionFactory connectionFactory;
+
+    public BrokerHealthIndicator(ConnectionFactory connectionFactory, MeterRegistry meterRegistry,
+                                 @Value("${health.probes.interval-ms:10000}") long intervalMillis,
+                                 @Value("${health.probes.stale-after-ms:30000}") long staleAfterMillis) {
+        super("jms", intervalMillis, staleAfterMillis, meterRegistry);
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        try (Connection connection = connectionFactory.createConnection()) {
+            connection.start();
+            builder.up().withDetail("provider", connection.getMetaData().getJMSProviderName());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.unisys.service;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Health indicator that probes its dependency on a background thread every {@code intervalMillis} and answers
+ * {@link #health()} from the last result, so polling the health endpoint never reaches the database, broker or mail
+ * server.
+ * <p>
+ * Every result carries {@code checkedAt}, {@code ageMs} and {@code latencyMs}. A result older than
+ * {@code staleAfterMillis}, e.g. because the probe hangs on an unreachable server, is reported as DOWN with
+ * {@code stale: true} and the last status it saw. DOWN rather than UNKNOWN, because the default status order ranks
+ * UNKNOWN below UP, so a hung dependency would leave the aggregate health UP. Before the first probe has finished
+ * the status is UNKNOWN, and DOWN once that has taken longer than {@code staleAfterMillis}.
+ * </p>
+ * <p>
+ * Metrics, tagged {@code name}: {@code health.probe} (probe latency histogram, tagged {@code status}) and
+ * {@code health.probe.age} (seconds since the last completed probe).
+ * </p>
+ */
+public abstract class CachedHealthIndicator implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedHealthIndicator.class);
+
+    private final String name;
+    private final long intervalMillis;
+    private final long staleAfterMillis;
+    private final MeterRegistry meterRegistry;
+    private final long createdAtMillis = System.currentTimeMillis();
+    private final Map<Status, Timer> probeTimers = new ConcurrentHashMap<>();
+
+    private volatile Result last;
+    private ScheduledExecutorService scheduler;
+
+    protected CachedHealthIndicator(String name, long intervalMillis, long staleAfterMillis,
+                                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.intervalMillis = intervalMillis;
+        this.staleAfterMillis = staleAfterMillis;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("health.probe.age", this, indicator -> indicator.ageMillis(System.currentTimeMillis()) / 1000.0)
+                .description("Time since the last completed health probe")
+                .tag("name", name)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        for (Status status : new Status[]{Status.UP, Status.DOWN, Status.OUT_OF_SERVICE, Status.UNKNOWN}) {
+            probeTimer(status);
+        }
+    }
+
+    /**
+     * Checks the dependency and adds its status and details to {@code builder}; an exception reports it DOWN.
+     */
+    protected abstract void doHealthCheck(Health.Builder builder) throws Exception;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("health-probe-" + name).daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the probe on the calling thread and caches its result.
+     */
+    public void probe() {
+        Health.Builder builder = new Health.Builder();
+        long start = System.nanoTime();
+        try {
+            builder.up();
+            doHealthCheck(builder);
+        } catch (Exception e) {
+            builder.down(e);
+        }
+        long latencyNanos = System.nanoTime() - start;
+        Health health = builder.build();
+        if (last != null && !health.getStatus().equals(last.health.getStatus())) {
+            logger.info("Health of {} changed from {} to {}", name, last.health.getStatus(), health.getStatus());
+        }
+        last = new Result(health, System.currentTimeMillis(), latencyNanos);
+        probeTimer(health.getStatus()).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The standard statuses are registered up front; a custom one a probe reports is registered on first use.
+     */
+    private Timer probeTimer(Status status) {
+        return probeTimers.computeIfAbsent(status, key -> Timer.builder("health.probe")
+                .description("Latency of the background health probes")
+                .tag("name", name)
+                .tag("status", key.getCode().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    @Override
+    public Health health() {
+        Result result = last;
+        long now = System.currentTimeMillis();
+        if (result == null) {
+            Health.Builder builder = ageMillis(now) > staleAfterMillis ? Health.down() : Health.unknown();
+            return builder.withDetail("reason", "Not probed yet").build();
+        }
+        long ageMillis = now - result.checkedAtMillis;
+        boolean stale = ageMillis > staleAfterMillis;
+        Health.Builder builder = stale
+                ? Health.down().withDetail("lastStatus", result.health.getStatus().getCode())
+                : Health.status(result.health.getStatus());
+        return builder.withDetails(result.health.getDetails())
+                .withDetail("checkedAt", Instant.ofEpochMilli(result.checkedAtMillis).toString())
+                .withDetail("ageMs", ageMillis)
+                .withDetail("latencyMs", TimeUnit.NANOSECONDS.toMillis(result.latencyNanos))
+                .withDetail("stale", stale)
+                .build();
+    }
+
+    private long ageMillis(long now) {
+        Result result = last;
+        return now - (result == null ? createdAtMillis : result.checkedAtMillis);
+    }
+
+    private record Result(Health health, long checkedAtMillis, long latencyNanos) {
+    }
+}
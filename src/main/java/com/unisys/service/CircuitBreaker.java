@@ -0,0 +1,297 @@
+package com.unisys.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker with a bulkhead for the calls to one integration, so a failing or hanging mail server or broker is
+ * answered at once instead of holding up every caller until its connection times out.
+ * <p>
+ * While CLOSED, the outcome of the last {@code windowSize} calls is kept. Once at least {@code minimumCalls} are
+ * recorded and the share of failed calls reaches the failure-rate threshold, or the share of calls slower than the
+ * slow-call duration reaches the slow-call-rate threshold, the breaker opens. While OPEN, calls are refused with
+ * {@link CallNotPermittedException}. After the open duration the breaker is HALF_OPEN and lets
+ * {@code halfOpenCalls} trial calls through: if they stay under both thresholds it closes, otherwise it opens again.
+ * </p>
+ * <p>
+ * Independently of the state, at most {@code maxConcurrentCalls} calls run at once; further ones are refused with
+ * {@link CallNotPermittedException} as well rather than waiting. Calls that hang are only counted when they finish,
+ * so the bulkhead is what keeps them from piling up.
+ * </p>
+ * <p>
+ * Metrics, tagged {@code name}: {@code circuitbreaker.state} (0 closed, 1 open, 2 half-open),
+ * {@code circuitbreaker.calls} tagged {@code outcome}, {@code circuitbreaker.failure.rate},
+ * {@code circuitbreaker.slow.call.rate}, {@code circuitbreaker.transitions} tagged {@code state} and
+ * {@code bulkhead.available}.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of making a call while the circuit is open or the bulkhead is full.
+     */
+    public static class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openedAtNanos;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private int halfOpenStarted;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter successful;
+    private final Counter failedCalls;
+    private final Counter slowSuccessful;
+    private final Counter slowFailed;
+    private final Counter notPermitted;
+    private final Counter bulkheadFull;
+    private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+
+    /**
+     * @param failureRateThreshold  percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold percentage of slow calls that opens the breaker
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMillis, long openMillis, int halfOpenCalls,
+                          int maxConcurrentCalls, MeterRegistry meterRegistry) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1
+                || halfOpenCalls > windowSize || maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("Invalid window, minimum calls, half-open calls or bulkhead size for circuit breaker " + name);
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = halfOpenCalls;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+        this.meterRegistry = meterRegistry;
+        this.successful = calls("success");
+        this.failedCalls = calls("failure");
+        this.slowSuccessful = calls("slow_success");
+        this.slowFailed = calls("slow_failure");
+        this.notPermitted = calls("not_permitted");
+        this.bulkheadFull = calls("bulkhead_full");
+        for (State target : State.values()) {
+            transitions.put(target, Counter.builder("circuitbreaker.transitions")
+                    .description("Transitions of the circuit breaker into a state")
+                    .tag("name", name)
+                    .tag("state", target.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("circuitbreaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("State of the circuit breaker: 0 closed, 1 open, 2 half-open")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("circuitbreaker.failure.rate", this, CircuitBreaker::getFailureRate)
+                .description("Percentage of failed calls among the recorded ones")
+                .tag("name", name)
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("circuitbreaker.slow.call.rate", this, CircuitBreaker::getSlowCallRate)
+                .description("Percentage of slow calls among the recorded ones")
+                .tag("name", name)
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Calls that may still start before the bulkhead is full")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Makes the call if the circuit and the bulkhead allow it and records its outcome.
+     *
+     * @throws CallNotPermittedException if the circuit is open or the bulkhead is full
+     */
+    public <T> T execute(Callable<T> call) throws Exception {
+        long callEpoch = acquirePermission();
+        if (!bulkhead.tryAcquire()) {
+            releasePermission(callEpoch);
+            bulkheadFull.increment();
+            throw new CallNotPermittedException("Too many concurrent " + name + " calls");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            onResult(callEpoch, System.nanoTime() - start, false);
+            return result;
+        } catch (Exception e) {
+            onResult(callEpoch, System.nanoTime() - start, true);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * @return whether a call would currently be let through, without making one
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAtNanos >= openNanos;
+            case HALF_OPEN -> halfOpenStarted < halfOpenCalls;
+        };
+    }
+
+    /**
+     * @return whether the exception, or one of its causes, is a call refused by a circuit breaker
+     */
+    public static boolean isNotPermitted(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallNotPermittedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : 100.0 * failures / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : 100.0 * slowCalls / recorded;
+    }
+
+    public synchronized int getRecordedCalls() {
+        return recorded;
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    private synchronized long acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && halfOpenStarted >= halfOpenCalls)) {
+            notPermitted.increment();
+            throw new CallNotPermittedException("Circuit breaker " + name + " is " + state);
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenStarted++;
+        }
+        return epoch;
+    }
+
+    private synchronized void releasePermission(long callEpoch) {
+        if (callEpoch == epoch && state == State.HALF_OPEN) {
+            halfOpenStarted--;
+        }
+    }
+
+    private synchronized void onResult(long callEpoch, long durationNanos, boolean error) {
+        boolean slowCall = durationNanos > slowCallNanos;
+        (error ? (slowCall ? slowFailed : failedCalls) : (slowCall ? slowSuccessful : successful)).increment();
+        if (callEpoch != epoch) {
+            // Started before the last transition; it says nothing about the current state
+            return;
+        }
+        if (recorded == windowSize) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = error;
+        slow[next] = slowCall;
+        failures += error ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % windowSize;
+
+        int needed = state == State.HALF_OPEN ? halfOpenCalls : minimumCalls;
+        if (recorded < needed) {
+            return;
+        }
+        boolean overThreshold = 100.0 * failures / recorded >= failureRateThreshold
+                || 100.0 * slowCalls / recorded >= slowCallRateThreshold;
+        if (overThreshold) {
+            transitionTo(State.OPEN);
+        } else if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    private void transitionTo(State target) {
+        if (target == State.OPEN) {
+            logger.warn("Circuit breaker {} opened: {}% failed, {}% slow of the last {} calls", name,
+                    Math.round(100.0 * failures / Math.max(1, recorded)),
+                    Math.round(100.0 * slowCalls / Math.max(1, recorded)), recorded);
+            openedAtNanos = System.nanoTime();
+        } else {
+            logger.info("Circuit breaker {} is now {}", name, target);
+        }
+        state = target;
+        epoch++;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        halfOpenStarted = 0;
+        transitions.get(target).increment();
+    }
+
+    private Counter calls(String outcome) {
+        return Counter.builder("circuitbreaker.calls")
+                .description("Calls through the circuit breaker by outcome")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
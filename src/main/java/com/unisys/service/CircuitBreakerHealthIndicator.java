@@ -0,0 +1,54 @@
+package com.unisys.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of every {@link CircuitBreaker} under {@code circuitBreakers} in the Actuator health endpoint.
+ * <p>
+ * An open or half-open breaker is reported as {@code CIRCUIT_OPEN} or {@code CIRCUIT_HALF_OPEN}. The default status
+ * aggregation ignores those codes, so the application stays UP: its work is deferred rather than lost while an
+ * integration is down, and restarting it would not bring the integration back.
+ * </p>
+ */
+@Component("circuitBreakers")
+public class CircuitBreakerHealthIndicator implements HealthIndicator {
+
+    static final Status CIRCUIT_OPEN = new Status("CIRCUIT_OPEN");
+    static final Status CIRCUIT_HALF_OPEN = new Status("CIRCUIT_HALF_OPEN");
+
+    private final List<CircuitBreaker> circuitBreakers;
+
+    public CircuitBreakerHealthIndicator(List<CircuitBreaker> circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public Health health() {
+        Status status = Status.UP;
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (CircuitBreaker breaker : circuitBreakers) {
+            CircuitBreaker.State state = breaker.getState();
+            if (state == CircuitBreaker.State.OPEN) {
+                status = CIRCUIT_OPEN;
+            } else if (state == CircuitBreaker.State.HALF_OPEN && status == Status.UP) {
+                status = CIRCUIT_HALF_OPEN;
+            }
+            Map<String, Object> breakerDetails = new LinkedHashMap<>();
+            breakerDetails.put("state", state);
+            breakerDetails.put("failureRate", breaker.getFailureRate());
+            breakerDetails.put("slowCallRate", breaker.getSlowCallRate());
+            breakerDetails.put("recordedCalls", breaker.getRecordedCalls());
+            breakerDetails.put("availableConcurrentCalls", breaker.getAvailableConcurrentCalls());
+            breakerDetails.put("maxConcurrentCalls", breaker.getMaxConcurrentCalls());
+            details.put(breaker.getName(), breakerDetails);
+        }
+        return Health.status(status).withDetails(details).build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.unisys.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.unisys.dao.ReadYourWrites;
+import com.unisys.tracing.Trace;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Bounded thread pool for the blocking calls to one downstream (the database, the mail server or the broker), so a
+ * slow downstream fills up its own pool and queue instead of the container's request threads or another downstream's
+ * pool.
+ * <p>
+ * {@link #supply(Callable)} runs a call on behalf of the current request and carries the request's attributes,
+ * read-your-writes state and trace to the pool thread. The returned future fails with
+ * {@link RejectedExecutionException} at once if the queue is full, and with {@link TimeoutException} if the call has
+ * not finished within the timeout. A call still queued at its timeout is dropped; one that is already running is left
+ * to finish, because interrupting a JDBC or SMTP call midway leaves its connection in an unknown state, so a timed-out
+ * write may still be committed. {@link #execute(Runnable)} runs fire-and-forget work that may outlive the request and
+ * carries none of its context.
+ * </p>
+ * <p>
+ * Metrics, tagged {@code name}: Micrometer's {@code executor.*} meters (active threads, queued tasks, remaining queue
+ * capacity, task and queue-wait timers), {@code executor.rejected} and {@code executor.timeouts}.
+ * </p>
+ */
+public class DownstreamExecutor {
+
+    private final String name;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final Counter rejected;
+    private final Counter timeouts;
+
+    /**
+     * @param threads       maximum concurrent calls to the downstream
+     * @param queueCapacity calls that may wait for a thread before further ones are rejected
+     * @param timeoutMillis time a {@linkplain #supply(Callable) supplied} call may take, queueing included
+     */
+    public DownstreamExecutor(String name, int threads, int queueCapacity, long timeoutMillis,
+                              MeterRegistry meterRegistry) {
+        if (threads < 1 || queueCapacity < 1 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("Threads, queue capacity and timeout of executor " + name + " must be positive");
+        }
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name(name + "-", 1).daemon().factory());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, name);
+        this.rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the executor's queue was full")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("executor.timeouts")
+                .description("Tasks whose caller stopped waiting for them")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs the call on a pool thread in the context of the current request.
+     *
+     * @return completes with the call's result, or exceptionally with its exception, a
+     *         {@link RejectedExecutionException} or a {@link TimeoutException}
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Trace trace = Trace.current();
+        Runnable task = ReadYourWrites.propagate(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                // Completing the result resumes the request, so its response is filtered and written on this
+                // thread, where the read-your-writes state of the call is still set
+                Runnable run = () -> {
+                    try {
+                        result.complete(call.call());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                };
+                if (trace != null) {
+                    trace.runBound(run);
+                } else {
+                    run.run();
+                }
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+        Future<?> submitted;
+        try {
+            submitted = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(e);
+            return result;
+        }
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                timeouts.increment();
+                submitted.cancel(false);
+            }
+        });
+    }
+
+    /**
+     * Runs the task on a pool thread without waiting for it and without the current request's context.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops taking tasks and waits briefly for the queued and running ones to finish.
+     */
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -1,28 +1,65 @@
 package com.unisys.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+
+import com.unisys.dao.OutboxDao;
 import com.unisys.errors.EmailServiceException;
+import com.unisys.model.OutboxEvent;
 
 /**
  * Service responsible for handling email operations.
+ * <p>
+ * Every send goes through the {@code mail} {@link CircuitBreaker}, so while the mail server is failing or slow,
+ * sends are refused at once instead of each waiting for the SMTP timeouts. The {@code ...OrDefer} variants park
+ * emails that cannot be sent now in the outbox, from where the outbox dispatcher sends them once the breaker lets
+ * calls through again.
+ * </p>
  */
 @Service
 public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+
+    /**
+     * One email of a batch. A batch may hold several emails to the same recipient.
+     */
+    public record Email(String to, String body) {
+    }
+
     private final JavaMailSender mailSender;
+    private final CircuitBreaker circuitBreaker;
+    private final OutboxDao outboxDao;
 
     /**
-     * Constructs an instance of EmailService.
+     * Constructs an instance of EmailService that sends directly, without a circuit breaker or deferral.
      *
      * @param mailSender the JavaMailSender object for sending emails.
      */
     public EmailService(JavaMailSender mailSender) {
+        this(mailSender, null, null);
+    }
+
+    /**
+     * @param circuitBreaker the breaker around the mail server, or {@code null} to always send directly.
+     * @param outboxDao      where deferred emails are parked, or {@code null} if they cannot be deferred.
+     */
+    @Autowired
+    public EmailService(JavaMailSender mailSender, @Qualifier("mailCircuitBreaker") CircuitBreaker circuitBreaker,
+                        OutboxDao outboxDao) {
         this.mailSender = mailSender;
+        this.circuitBreaker = circuitBreaker;
+        this.outboxDao = outboxDao;
     }
 
     /**
@@ -44,11 +81,131 @@ public class EmailService {
             message.setTo(to);
             message.setSubject(subject);
             message.setText(body);
-            mailSender.send(message);
+            send(message);
             logger.info("Email sent successfully to {}", to);
+        } catch (CircuitBreaker.CallNotPermittedException e) {
+            logger.warn("Email to {} not sent: {}", to, e.getMessage());
+            throw new EmailServiceException("Failed to send email to " + to, e);
         } catch (Exception e) {
             logger.error("Error sending email to {}", to, e);
             throw new EmailServiceException("Failed to send email to " + to, e);
         }
     }
+
+    /**
+     * Sends emails with the same subject over a single mail session,
+     * instead of opening a connection per message.
+     *
+     * @param subject the subject of every email.
+     * @param emails  the recipients and bodies, one entry per email to send.
+     * @return the emails the mail server did not take, empty if all were sent. The others were sent and must not
+     *         be sent again.
+     * @throws EmailServiceException if sending fails before any email is known to be sent or refused.
+     */
+    public List<Email> sendEmails(String subject, List<Email> emails) {
+        if (emails == null || emails.isEmpty()) {
+            return List.of();
+        }
+        SimpleMailMessage[] messages = emails.stream().map(email -> {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.to());
+            message.setSubject(subject);
+            message.setText(email.body());
+            return message;
+        }).toArray(SimpleMailMessage[]::new);
+        try {
+            send(messages);
+            logger.info("{} emails sent successfully", messages.length);
+            return List.of();
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                logger.error("Error sending {} emails", emails.size(), e);
+                throw new EmailServiceException("Failed to send " + emails.size() + " emails", e);
+            }
+            // Keyed by the messages passed in, so the failed ones map back to their emails
+            List<Email> failed = new ArrayList<>();
+            for (int i = 0; i < messages.length; i++) {
+                if (failedMessages.containsKey(messages[i])) {
+                    failed.add(emails.get(i));
+                }
+            }
+            logger.warn("{} of {} emails not sent: {}", failed.size(), emails.size(), e.getMessage());
+            return failed;
+        } catch (CircuitBreaker.CallNotPermittedException e) {
+            logger.warn("{} emails not sent: {}", emails.size(), e.getMessage());
+            throw new EmailServiceException("Failed to send " + emails.size() + " emails", e);
+        } catch (Exception e) {
+            logger.error("Error sending {} emails", emails.size(), e);
+            throw new EmailServiceException("Failed to send " + emails.size() + " emails", e);
+        }
+    }
+
+    /**
+     * Sends an email, or parks it in the outbox if the mail server cannot take it right now.
+     *
+     * @return {@code true} if the email was sent, {@code false} if it was deferred.
+     * @throws IllegalArgumentException if the recipient's email is null or blank.
+     * @throws EmailServiceException    if the email could neither be sent nor deferred.
+     */
+    public boolean sendEmailOrDefer(String to, String subject, String body) {
+        try {
+            sendEmail(to, subject, body);
+            return true;
+        } catch (EmailServiceException e) {
+            deferEmails(subject, List.of(new Email(to, body)));
+            return false;
+        }
+    }
+
+    /**
+     * Sends the emails over one mail session, and parks those the mail server cannot take right now in the outbox.
+     *
+     * @return {@code true} if all emails were sent, {@code false} if some or all were deferred.
+     * @throws EmailServiceException if the emails could neither be sent nor deferred.
+     */
+    public boolean sendEmailsOrDefer(String subject, List<Email> emails) {
+        List<Email> failed;
+        try {
+            failed = sendEmails(subject, emails);
+        } catch (EmailServiceException e) {
+            failed = emails;
+        }
+        deferEmails(subject, failed);
+        return failed == null || failed.isEmpty();
+    }
+
+    /**
+     * Parks the emails in the outbox without trying to send them first.
+     *
+     * @throws EmailServiceException if the emails could not be parked.
+     */
+    public void deferEmails(String subject, List<Email> emails) {
+        if (emails == null || emails.isEmpty()) {
+            return;
+        }
+        if (outboxDao == null) {
+            throw new EmailServiceException("Cannot defer " + emails.size() + " emails without an outbox");
+        }
+        List<OutboxEvent> events = emails.stream()
+                .map(email -> new OutboxEvent(OutboxEvent.EMAIL, email.to(), subject, email.body()))
+                .toList();
+        try {
+            outboxDao.enqueue(events);
+        } catch (RuntimeException e) {
+            throw new EmailServiceException("Failed to defer " + events.size() + " emails", e);
+        }
+        logger.warn("Deferred {} emails to the outbox", events.size());
+    }
+
+    private void send(SimpleMailMessage... messages) throws Exception {
+        if (circuitBreaker == null) {
+            mailSender.send(messages);
+            return;
+        }
+        circuitBreaker.execute(() -> {
+            mailSender.send(messages);
+            return null;
+        });
+    }
 }
@@ -0,0 +1,56 @@
+package com.unisys.service;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import com.unisys.config.InstrumentedDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Background health probe of the {@code jdbc/student} pool, reported as the {@code db} health component in place of
+ * Spring Boot's per-request one.
+ * <p>
+ * Every {@code health.probes.interval-ms} it borrows one connection, validates it with a driver ping within
+ * {@code health.probes.db.timeout-seconds} and adds the pool's active, idle and maximum connection counts.
+ * </p>
+ */
+@Component("dbHealthIndicator")
+public class JndiDataSourceHealthIndicator extends CachedHealthIndicator {
+
+    private final DataSource dataSource;
+    private final int timeoutSeconds;
+
+    public JndiDataSourceHealthIndicator(DataSource dataSource, MeterRegistry meterRegistry,
+                                         @Value("${health.probes.interval-ms:10000}") long intervalMillis,
+                                         @Value("${health.probes.stale-after-ms:30000}") long staleAfterMillis,
+                                         @Value("${health.probes.db.timeout-seconds:2}") int timeoutSeconds) {
+        super("db", intervalMillis, staleAfterMillis, meterRegistry);
+        this.dataSource = dataSource;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isValid(timeoutSeconds)) {
+                builder.up();
+            } else {
+                builder.down();
+            }
+            builder.withDetail("database", connection.getMetaData().getDatabaseProductName());
+        }
+        if (dataSource.isWrapperFor(InstrumentedDataSource.class)) {
+            BasicDataSource pool = dataSource.unwrap(InstrumentedDataSource.class).getPool();
+            builder.withDetail("active", pool.getNumActive())
+                    .withDetail("idle", pool.getNumIdle())
+                    .withDetail("maxTotal", pool.getMaxTotal());
+        }
+    }
+}
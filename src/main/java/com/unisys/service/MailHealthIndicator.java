@@ -0,0 +1,41 @@
+package com.unisys.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Background health probe of the SMTP server, reported as the {@code mail} health component in place of Spring
+ * Boot's per-request one.
+ * <p>
+ * Every {@code health.probes.interval-ms} it connects to the server and closes the connection again; no mail is
+ * sent.
+ * </p>
+ */
+@Component("mailHealthIndicator")
+public class MailHealthIndicator extends CachedHealthIndicator {
+
+    private final JavaMailSender mailSender;
+
+    public MailHealthIndicator(JavaMailSender mailSender, MeterRegistry meterRegistry,
+                               @Value("${health.probes.interval-ms:10000}") long intervalMillis,
+                               @Value("${health.probes.stale-after-ms:30000}") long staleAfterMillis) {
+        super("mail", intervalMillis, staleAfterMillis, meterRegistry);
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        if (!(mailSender instanceof JavaMailSenderImpl smtp)) {
+            builder.unknown().withDetail("reason", "Not an SMTP mail sender");
+            return;
+        }
+        builder.withDetail("location", smtp.getHost() + ":" + smtp.getPort());
+        smtp.testConnection();
+        builder.up();
+    }
+}
@@ -1,20 +1,62 @@
 package com.unisys.service;
 
+import java.time.Duration;
+import java.time.Instant;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 import com.unisys.model.SystemMessage;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+/**
+ * One-message-per-invocation listener for {@code myqueue}, used unless {@code jms.consumer.batch.enabled} is set
+ * (see {@link BatchingMessageConsumer}).
+ */
 @Component
+@ConditionalOnProperty(name = "jms.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class MessageConsumer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageConsumer.class);
 
+    private final Timer lagTimer;
+    private final Timer processingTimer;
+
+    public MessageConsumer(MeterRegistry meterRegistry) {
+        this.lagTimer = consumerLagTimer(meterRegistry);
+        this.processingTimer = processingTimer(meterRegistry);
+    }
+
     @JmsListener(destination = "myqueue")
-    public void messageListener(SystemMessage systemMessage) {
+    public void messageListener(SystemMessage systemMessage, @Header(JmsHeaders.TIMESTAMP) long sentAt) {
+        lagTimer.record(Duration.between(Instant.ofEpochMilli(sentAt), Instant.now()));
+        processingTimer.record(() -> handle(systemMessage));
+    }
+
+    static void handle(SystemMessage systemMessage) {
         LOGGER.info("Message received! {}", systemMessage);
     }
-}
\ No newline at end of file
+
+    static Timer consumerLagTimer(MeterRegistry meterRegistry) {
+        return Timer.builder("jms.consumer.lag")
+                .description("Time between a message being sent and being picked up by a consumer")
+                .tag("queue", "myqueue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    static Timer processingTimer(MeterRegistry meterRegistry) {
+        return Timer.builder("jms.consumer.processing")
+                .description("Processing time per message")
+                .tag("queue", "myqueue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
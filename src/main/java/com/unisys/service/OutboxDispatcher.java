@@ -0,0 +1,240 @@
+package com.unisys.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.unisys.controller.MessagePublisher;
+import com.unisys.dao.OutboxDao;
+import com.unisys.model.OutboxEvent;
+import com.unisys.model.SystemMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Background pool that drains the {@code user_outbox} table.
+ * <p>
+ * Each of the {@code outbox.dispatcher.threads} workers repeatedly claims up to {@code outbox.dispatcher.batch-size}
+ * due events, sends the emails of the batch over one mail session per subject and publishes the system messages.
+ * Failed events are retried with exponential backoff (capped at {@code outbox.dispatcher.max-backoff-ms}) and
+ * parked as FAILED after {@code outbox.dispatcher.max-attempts}. Events whose send an open circuit breaker refused
+ * are rescheduled without counting an attempt, so an outage does not exhaust them. A worker that finds a full batch
+ * polls again immediately; otherwise it sleeps for {@code outbox.dispatcher.poll-interval-ms}.
+ * </p>
+ * <p>
+ * Claimed events are leased for {@code outbox.dispatcher.lease-ms} and sent outside any database transaction, so a
+ * slow mail server or broker holds neither row locks nor a pooled connection.
+ * </p>
+ * <p>
+ * Metrics: {@code outbox.dispatch.lag} (time from commit to delivery), {@code outbox.dispatched},
+ * {@code outbox.retries} and {@code outbox.deferred} per event type.
+ * </p>
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxDao outboxDao;
+    private final EmailService emailService;
+    private final MessagePublisher messagePublisher;
+    private final MeterRegistry meterRegistry;
+    private final Timer lagTimer;
+    private final Map<String, Counter> dispatched = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deferred = new ConcurrentHashMap<>();
+    private final Map<String, Counter> retries = new ConcurrentHashMap<>();
+
+    @Value("${outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${outbox.dispatcher.threads:2}")
+    private int threads;
+
+    @Value("${outbox.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.poll-interval-ms:500}")
+    private long pollIntervalMillis;
+
+    // Must exceed the time a batch takes to send; a batch still unfinished after it is claimed again
+    @Value("${outbox.dispatcher.lease-ms:300000}")
+    private long leaseMillis;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.base-backoff-ms:1000}")
+    private long baseBackoffMillis;
+
+    @Value("${outbox.dispatcher.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public OutboxDispatcher(OutboxDao outboxDao, EmailService emailService, MessagePublisher messagePublisher,
+                            MeterRegistry meterRegistry) {
+        this.outboxDao = outboxDao;
+        this.emailService = emailService;
+        this.messagePublisher = messagePublisher;
+        this.meterRegistry = meterRegistry;
+        this.lagTimer = Timer.builder("outbox.dispatch.lag")
+                .description("Time from outbox commit to successful delivery")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (String type : List.of(OutboxEvent.WELCOME_EMAIL, OutboxEvent.EMAIL, OutboxEvent.SYSTEM_MESSAGE)) {
+            counter(dispatched, "outbox.dispatched", type);
+            counter(deferred, "outbox.deferred", type);
+            counter(retries, "outbox.retries", type);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Outbox dispatcher disabled.");
+            return;
+        }
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("outbox-dispatcher-", 1).factory()
+                : Thread.ofPlatform().name("outbox-dispatcher-", 1).daemon().factory();
+        executor = Executors.newScheduledThreadPool(threads, threadFactory);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Claims and delivers one batch of due events on the calling thread.
+     *
+     * @return the number of events claimed
+     */
+    public int dispatchOnce() {
+        return outboxDao.dispatchDue(batchSize, leaseMillis, maxAttempts, this::backoffMillis, this::dispatch);
+    }
+
+    private void drain() {
+        int claimed = 0;
+        try {
+            claimed = dispatchOnce();
+        } catch (Exception e) {
+            logger.error("Outbox dispatch failed: {}", e.getMessage(), e);
+        } finally {
+            if (!executor.isShutdown()) {
+                executor.schedule(this::drain, claimed >= batchSize ? 0 : pollIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        long backoff = baseBackoffMillis << Math.min(attempts - 1, 20);
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+    private void dispatch(List<OutboxEvent> events) {
+        // One entry per event, so two events to the same recipient are both sent before their rows are deleted
+        Map<String, List<OutboxEvent>> emailsBySubject = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            if (isEmail(event)) {
+                emailsBySubject.computeIfAbsent(event.getSubject(), subject -> new ArrayList<>()).add(event);
+            }
+        }
+        Set<OutboxEvent> sentEmails = new HashSet<>();
+        Set<String> refusedSubjects = new HashSet<>();
+        emailsBySubject.forEach((subject, emailEvents) -> {
+            List<EmailService.Email> emails = emailEvents.stream()
+                    .map(event -> new EmailService.Email(event.getDestination(), event.getBody()))
+                    .toList();
+            try {
+                // Only the emails the server did not take are retried, the others were delivered
+                List<EmailService.Email> failed = emailService.sendEmails(subject, emails);
+                for (int i = 0; i < emails.size(); i++) {
+                    if (!failed.contains(emails.get(i))) {
+                        sentEmails.add(emailEvents.get(i));
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    logger.warn("{} of {} emails will be retried", failed.size(), emails.size());
+                }
+            } catch (Exception e) {
+                if (CircuitBreaker.isNotPermitted(e)) {
+                    refusedSubjects.add(subject);
+                } else {
+                    logger.warn("{} emails will be retried: {}", emails.size(), e.getMessage());
+                }
+            }
+        });
+        for (OutboxEvent event : events) {
+            boolean delivered = switch (event.getType()) {
+                case OutboxEvent.WELCOME_EMAIL, OutboxEvent.EMAIL -> {
+                    event.setDeferred(refusedSubjects.contains(event.getSubject()));
+                    yield sentEmails.contains(event);
+                }
+                case OutboxEvent.SYSTEM_MESSAGE -> publish(event);
+                default -> {
+                    logger.error("Unknown outbox event type {} for event {}", event.getType(), event.getId());
+                    yield false;
+                }
+            };
+            event.setDispatched(delivered);
+            if (delivered) {
+                lagTimer.record(Duration.between(event.getCreatedAt(), Instant.now()));
+                counter(dispatched, "outbox.dispatched", event.getType()).increment();
+            } else if (event.isDeferred()) {
+                counter(deferred, "outbox.deferred", event.getType()).increment();
+            } else {
+                counter(retries, "outbox.retries", event.getType()).increment();
+            }
+        }
+    }
+
+    // The known types are registered up front; an unknown type read from the table gets its counter on first use
+    private Counter counter(Map<String, Counter> counters, String name, String type) {
+        return counters.computeIfAbsent(type, t -> Counter.builder(name).tag("type", t).register(meterRegistry));
+    }
+
+    private static boolean isEmail(OutboxEvent event) {
+        return OutboxEvent.WELCOME_EMAIL.equals(event.getType()) || OutboxEvent.EMAIL.equals(event.getType());
+    }
+
+    private boolean publish(OutboxEvent event) {
+        SystemMessage systemMessage = new SystemMessage();
+        systemMessage.setSource(event.getDestination());
+        systemMessage.setMessage(event.getBody());
+        // Not publishMessage: a failed event is rescheduled here instead of being parked in the outbox again
+        Response response = messagePublisher.publishNow(systemMessage);
+        event.setDeferred(response.getStatus() == Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        return response.getStatus() == Response.Status.OK.getStatusCode();
+    }
+}
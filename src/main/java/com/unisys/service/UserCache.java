@@ -0,0 +1,170 @@
+package com.unisys.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.activemq.command.ActiveMQTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.unisys.model.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+
+/**
+ * Bounded, read-through cache of users by ID.
+ * <p>
+ * Entries are evicted by Caffeine's W-TinyLFU policy once {@code users.cache.max-size} is reached and expire after
+ * {@code users.cache.ttl-ms}. Lookups that found no user are cached too, for the shorter
+ * {@code users.cache.negative-ttl-ms}, so repeated probes for missing IDs do not reach the database.
+ * </p>
+ * <p>
+ * Writes call {@link #invalidate(Long)}, which evicts locally and broadcasts the ID on a topic so every other node
+ * evicts it as well. A topic is used rather than a queue because a queue would deliver each invalidation to only one
+ * node. Hit, miss and eviction counts are published as {@code cache.*} metrics tagged {@code cache=users}.
+ * </p>
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+    private static final String ORIGIN_PROPERTY = "origin";
+    private static final String ALL = "*";
+
+    private final Cache<Long, Optional<User>> cache;
+    private final JmsTemplate jmsTemplate;
+    private final ActiveMQTopic invalidationTopic;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<Long>> remoteInvalidationListeners = new CopyOnWriteArrayList<>();
+
+    public UserCache(JmsTemplate jmsTemplate,
+                     @Value("${users.cache.max-size:10000}") long maxSize,
+                     @Value("${users.cache.ttl-ms:60000}") long ttlMillis,
+                     @Value("${users.cache.negative-ttl-ms:5000}") long negativeTtlMillis,
+                     @Value("${users.cache.invalidation-topic:users.cache.invalidate}") String invalidationTopic) {
+        this.jmsTemplate = jmsTemplate;
+        this.invalidationTopic = new ActiveMQTopic(invalidationTopic);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TtlExpiry(ttlMillis * 1_000_000L, negativeTtlMillis * 1_000_000L))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached user, loading it with {@code loader} on a miss. A {@code null} result is cached as absent.
+     */
+    public User get(Long id, Function<Long, User> loader) {
+        return cache.get(id, key -> Optional.ofNullable(loader.apply(key))).orElse(null);
+    }
+
+    /**
+     * Returns the cached user without loading it, or {@code null} if it is not cached or cached as absent.
+     */
+    public User getIfPresent(Long id) {
+        Optional<User> cached = cache.getIfPresent(id);
+        return cached != null ? cached.orElse(null) : null;
+    }
+
+    /**
+     * Evicts the user on this node and asks every other node to do the same.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        broadcast(String.valueOf(id));
+    }
+
+    /**
+     * Empties the cache on this node and every other node, for writes that touch too many users to name.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        broadcast(ALL);
+    }
+
+    private void broadcast(String key) {
+        try {
+            jmsTemplate.send(invalidationTopic, session -> {
+                TextMessage message = session.createTextMessage(key);
+                message.setStringProperty(ORIGIN_PROPERTY, nodeId);
+                return message;
+            });
+        } catch (Exception e) {
+            // Other nodes fall back to the TTL; the write itself has already succeeded.
+            logger.warn("Failed to broadcast cache invalidation for user {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Registers a callback for invalidations broadcast by other nodes, called with the user ID, or with
+     * {@code null} when another node invalidated all users. Called on the JMS listener thread.
+     */
+    public void onRemoteInvalidation(Consumer<Long> listener) {
+        remoteInvalidationListeners.add(listener);
+    }
+
+    @JmsListener(destination = "${users.cache.invalidation-topic:users.cache.invalidate}",
+            containerFactory = "topicListenerFactory")
+    public void onInvalidation(Message message) throws JMSException {
+        if (nodeId.equals(message.getStringProperty(ORIGIN_PROPERTY)) || !(message instanceof TextMessage text)) {
+            return;
+        }
+        String key = text.getText();
+        Long id = ALL.equals(key) ? null : Long.valueOf(key);
+        if (id == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(id);
+        }
+        for (Consumer<Long> listener : remoteInvalidationListeners) {
+            listener.accept(id);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    private static final class TtlExpiry implements Expiry<Long, Optional<User>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private TtlExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<User> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<User> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<User> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
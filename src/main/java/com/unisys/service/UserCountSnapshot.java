@@ -0,0 +1,65 @@
+package com.unisys.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.unisys.dao.UserDao;
+
+/**
+ * Shared, time-bounded view of the number of users.
+ * <p>
+ * The count is taken with {@code SELECT COUNT(*)} and reused by every caller until it is older than
+ * {@code users.count.snapshot.ttl-ms}, so the scheduled jobs (and any gauge) never hit the database
+ * more than once per TTL between them. Concurrent callers of an expired snapshot share one refresh.
+ * </p>
+ */
+@Component
+public class UserCountSnapshot {
+
+    private final UserDao userDao;
+    private final long ttlNanos;
+    private final Object refreshLock = new Object();
+
+    private volatile Snapshot current;
+
+    @Autowired
+    public UserCountSnapshot(UserDao userDao, @Value("${users.count.snapshot.ttl-ms:60000}") long ttlMillis) {
+        if (userDao == null) {
+            throw new IllegalArgumentException("UserDao cannot be null");
+        }
+        this.userDao = userDao;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Returns the cached user count, refreshing it from the database if it has expired.
+     */
+    public long getCount() {
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.isFresh(ttlNanos)) {
+            return snapshot.count();
+        }
+        synchronized (refreshLock) {
+            snapshot = current;
+            if (snapshot == null || !snapshot.isFresh(ttlNanos)) {
+                snapshot = new Snapshot(userDao.countUsers(), System.nanoTime());
+                current = snapshot;
+            }
+            return snapshot.count();
+        }
+    }
+
+    /**
+     * Drops the cached value so the next read goes to the database.
+     */
+    public void invalidate() {
+        current = null;
+    }
+
+    private record Snapshot(long count, long takenAtNanos) {
+        boolean isFresh(long ttlNanos) {
+            return System.nanoTime() - takenAtNanos < ttlNanos;
+        }
+    }
+}
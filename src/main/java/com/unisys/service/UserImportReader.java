@@ -0,0 +1,245 @@
+package com.unisys.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.unisys.model.User;
+
+/**
+ * Reads users from an import stream one record at a time, so only the current record is held in memory.
+ * <p>
+ * A record that cannot be parsed is returned as an error for its line and reading continues with the next one.
+ * Records longer than {@link #MAX_RECORD_LENGTH} characters are rejected the same way without being buffered.
+ * </p>
+ */
+abstract class UserImportReader implements Closeable {
+
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    /**
+     * One input record: the user parsed from it, or why it could not be parsed.
+     *
+     * @param line 1-based line on which the record starts
+     */
+    record Row(long line, User user, String error) {
+    }
+
+    private final Reader reader;
+    final StringBuilder record = new StringBuilder();
+    long line = 1;
+    private int pushedBack = -2;
+
+    private UserImportReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    static UserImportReader ndjson(Reader reader, ObjectReader userReader) {
+        return new Ndjson(reader, userReader);
+    }
+
+    static UserImportReader csv(Reader reader) throws IOException {
+        return new Csv(reader);
+    }
+
+    /**
+     * @return the next record, or {@code null} at the end of the stream
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    /**
+     * Consumes a line terminator whose first character was {@code c}: {@code \n}, {@code \r} or {@code \r\n}.
+     */
+    void endOfLine(int c) throws IOException {
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') {
+                pushedBack = next;
+            }
+        }
+        line++;
+    }
+
+    private static final class Ndjson extends UserImportReader {
+
+        private final ObjectReader userReader;
+
+        Ndjson(Reader reader, ObjectReader userReader) {
+            super(reader);
+            this.userReader = userReader;
+        }
+
+        @Override
+        Row next() throws IOException {
+            while (true) {
+                record.setLength(0);
+                long start = line;
+                boolean tooLong = false;
+                int c;
+                while ((c = read()) != -1 && c != '\n' && c != '\r') {
+                    if (record.length() < MAX_RECORD_LENGTH) {
+                        record.append((char) c);
+                    } else {
+                        tooLong = true;
+                    }
+                }
+                if (c == -1 && record.isEmpty()) {
+                    return null;
+                }
+                if (c != -1) {
+                    endOfLine(c);
+                }
+                if (tooLong) {
+                    return new Row(start, null, "Line exceeds " + MAX_RECORD_LENGTH + " characters.");
+                }
+                if (record.toString().isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Row(start, userReader.readValue(record.toString()), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(start, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header line naming the columns. {@code username} and {@code email} are required; other
+     * columns are ignored. Quoted fields may contain separators, doubled quotes and line breaks.
+     */
+    private static final class Csv extends UserImportReader {
+
+        private static final int END = 0;
+        private static final int RECORD = 1;
+        private static final int TOO_LONG = 2;
+
+        private final int usernameColumn;
+        private final int emailColumn;
+        private final List<String> fields = new ArrayList<>();
+
+        Csv(Reader reader) throws IOException {
+            super(reader);
+            if (readRecord() != RECORD) {
+                throw new IllegalArgumentException("CSV import needs a header line with username and email columns");
+            }
+            int username = -1;
+            int email = -1;
+            for (int i = 0; i < fields.size(); i++) {
+                String name = fields.get(i).trim().toLowerCase(Locale.ROOT);
+                if (name.equals("username")) {
+                    username = i;
+                } else if (name.equals("email")) {
+                    email = i;
+                }
+            }
+            if (username < 0 || email < 0) {
+                throw new IllegalArgumentException("CSV header must contain username and email columns");
+            }
+            this.usernameColumn = username;
+            this.emailColumn = email;
+        }
+
+        @Override
+        Row next() throws IOException {
+            while (true) {
+                long start = line;
+                int status = readRecord();
+                if (status == END) {
+                    return null;
+                }
+                if (status == TOO_LONG) {
+                    return new Row(start, null, "Record exceeds " + MAX_RECORD_LENGTH + " characters.");
+                }
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                if (fields.size() <= Math.max(usernameColumn, emailColumn)) {
+                    return new Row(start, null, "Expected at least " + (Math.max(usernameColumn, emailColumn) + 1)
+                            + " fields but found " + fields.size() + ".");
+                }
+                return new Row(start, new User(null, fields.get(usernameColumn), fields.get(emailColumn)), null);
+            }
+        }
+
+        /**
+         * Reads the next record into {@link #fields}.
+         *
+         * @return {@link #RECORD}, {@link #END} at the end of the stream, or {@link #TOO_LONG} after skipping
+         *         the rest of a record that is too long
+         */
+        private int readRecord() throws IOException {
+            fields.clear();
+            StringBuilder field = record;
+            field.setLength(0);
+            int length = 0;
+            boolean quoted = false;
+            boolean tooLong = false;
+            int c = read();
+            if (c == -1) {
+                return END;
+            }
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        break;
+                    } else if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n' || c == '\r') {
+                            endOfLine(c);
+                            c = '\n';
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n' || c == '\r') {
+                    if (c != -1) {
+                        endOfLine(c);
+                    }
+                    break;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                if (++length > MAX_RECORD_LENGTH) {
+                    tooLong = true;
+                    field.setLength(0);
+                    fields.clear();
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return tooLong ? TOO_LONG : RECORD;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.unisys.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.unisys.dao.UserDao;
+import com.unisys.errors.DaoException;
+import com.unisys.model.ImportProgress;
+import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Bulk import of users from an NDJSON or CSV stream.
+ * <p>
+ * The stream is parsed one record at a time and valid rows are upserted by username in chunks of
+ * {@code users.import.chunk-size}. Each chunk is written on a single connection before the next one is read, so
+ * an import holds at most one pooled connection and reads the request body only as fast as the database accepts
+ * rows. At most {@code users.import.max-concurrent} imports run at once; further ones are rejected with 503.
+ * </p>
+ * <p>
+ * Progress is published in an {@link ImportProgress} that can be looked up by ID while the import runs. The last
+ * {@code users.import.history} finished imports are kept for lookup as well.
+ * </p>
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    @Value("${users.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${users.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    @Value("${users.import.history:20}")
+    private int historySize = 20;
+
+    private final UserDao userDao;
+    private final Validator validator;
+    private final UserCache userCache;
+    private final UserCountSnapshot userCount;
+    private final UserSearchIndex searchIndex;
+    private final UsernameFilter usernameFilter;
+    private final ObjectReader userReader;
+    private final Semaphore permits;
+    private final Map<String, ImportProgress> imports = new LinkedHashMap<>();
+
+    @Autowired
+    public UserImportService(UserDao userDao, Validator validator, ObjectMapper objectMapper, UserCache userCache,
+                             UserCountSnapshot userCount, UserSearchIndex searchIndex, UsernameFilter usernameFilter,
+                             @Value("${users.import.max-concurrent:2}") int maxConcurrent) {
+        if (userDao == null || validator == null || objectMapper == null || userCache == null || userCount == null
+                || searchIndex == null || usernameFilter == null) {
+            throw new IllegalArgumentException("UserDao, Validator, ObjectMapper, UserCache, UserCountSnapshot, UserSearchIndex and UsernameFilter cannot be null");
+        }
+        this.userDao = userDao;
+        this.validator = validator;
+        this.userCache = userCache;
+        this.userCount = userCount;
+        this.searchIndex = searchIndex;
+        this.usernameFilter = usernameFilter;
+        this.userReader = objectMapper.readerFor(User.class);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Runs an import to completion on the calling thread.
+     *
+     * @param importId ID under which progress is published; a random one is assigned if {@code null}
+     * @param format   {@link #NDJSON} or {@link #CSV}
+     * @param body     the records; closed when the import ends
+     * @return the final progress, {@link ImportProgress#COMPLETED} or {@link ImportProgress#FAILED}
+     * @throws IllegalArgumentException if the format is unknown, the ID is in use or the CSV header is invalid
+     * @throws ResponseStatusException  with 503 if too many imports are already running
+     */
+    public ImportProgress importUsers(String importId, String format, Reader body) {
+        if (!NDJSON.equals(format) && !CSV.equals(format)) {
+            throw new IllegalArgumentException("format must be " + NDJSON + " or " + CSV);
+        }
+        if (!permits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are running");
+        }
+        try {
+            ImportProgress progress = register(importId != null ? importId : UUID.randomUUID().toString(), format);
+            run(progress, format, body);
+            return progress;
+        } finally {
+            permits.release();
+        }
+    }
+
+    public ImportProgress getImport(String importId) {
+        synchronized (imports) {
+            return imports.get(importId);
+        }
+    }
+
+    /**
+     * @return running and recently finished imports, oldest first
+     */
+    public List<ImportProgress> getImports() {
+        synchronized (imports) {
+            return new ArrayList<>(imports.values());
+        }
+    }
+
+    private void run(ImportProgress progress, String format, Reader body) {
+        List<User> chunk = new ArrayList<>(chunkSize);
+        List<Long> lines = new ArrayList<>(chunkSize);
+        try (UserImportReader reader = CSV.equals(format)
+                ? UserImportReader.csv(body) : UserImportReader.ndjson(body, userReader)) {
+            UserImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                progress.lineRead();
+                if (row.error() != null) {
+                    progress.lineFailed(row.line(), row.error());
+                    continue;
+                }
+                String violations = validate(row.user());
+                if (violations != null) {
+                    progress.lineFailed(row.line(), violations);
+                    continue;
+                }
+                chunk.add(row.user());
+                lines.add(row.line());
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, lines, progress);
+                }
+            }
+            flush(chunk, lines, progress);
+            progress.complete();
+        } catch (IllegalArgumentException e) {
+            progress.fail(e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            logger.warn("Import {} aborted reading the request body: {}", progress.getId(), e.getMessage());
+            progress.fail("Failed to read the request body: " + e.getMessage());
+        } catch (DaoException e) {
+            logger.error("Import {} aborted by a database error: {}", progress.getId(), e.getMessage(), e);
+            progress.fail("Database error: " + e.getMessage());
+        } finally {
+            if (progress.getUpserted() > 0) {
+                userCache.invalidateAll();
+                userCount.invalidate();
+                // Upserted rows are matched by username, so their IDs are not known here
+                searchIndex.rebuild();
+                usernameFilter.rebuild();
+            }
+            logger.info("Import {} {}: {} lines read, {} upserted, {} failed", progress.getId(),
+                    progress.getState(), progress.getLinesRead(), progress.getUpserted(), progress.getFailed());
+        }
+    }
+
+    private void flush(List<User> chunk, List<Long> lines, ImportProgress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<UserBatchResult> results = userDao.upsertUsers(chunk, 0);
+        int upserted = 0;
+        for (UserBatchResult result : results) {
+            if (UserBatchResult.UPSERTED.equals(result.getStatus())) {
+                upserted++;
+            } else {
+                progress.lineFailed(lines.get(result.getIndex()), result.getError());
+            }
+        }
+        progress.upserted(upserted);
+        chunk.clear();
+        lines.clear();
+    }
+
+    /**
+     * @return the constraint violations of the user joined into one message, or {@code null} if it is valid
+     */
+    private String validate(User user) {
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringJoiner message = new StringJoiner("; ");
+        violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .forEach(message::add);
+        return message.toString();
+    }
+
+    private ImportProgress register(String importId, String format) {
+        synchronized (imports) {
+            ImportProgress existing = imports.get(importId);
+            if (existing != null && ImportProgress.RUNNING.equals(existing.getState())) {
+                throw new IllegalArgumentException("Import " + importId + " is already running");
+            }
+            imports.remove(importId);
+            ImportProgress progress = new ImportProgress(importId, format, maxReportedErrors);
+            imports.put(importId, progress);
+            int finished = 0;
+            for (ImportProgress p : imports.values()) {
+                if (!ImportProgress.RUNNING.equals(p.getState())) {
+                    finished++;
+                }
+            }
+            Iterator<ImportProgress> oldest = imports.values().iterator();
+            while (finished > historySize && oldest.hasNext()) {
+                if (!ImportProgress.RUNNING.equals(oldest.next().getState())) {
+                    oldest.remove();
+                    finished--;
+                }
+            }
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.unisys.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.unisys.dao.ReadYourWrites;
+import com.unisys.dao.UserDao;
+import com.unisys.model.User;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process index of usernames and emails for {@code GET /users/search}, so searches never reach the database.
+ * <p>
+ * Every user occupies a slot holding its lower-cased username and email, and each distinct trigram of those two
+ * values maps to the slots that contain it. A query of three or more characters scans only the slots of its rarest
+ * trigram and checks each of them against the whole query. The one- and two-character prefixes of both values are
+ * indexed the same way for short prefix queries; short substring queries scan all slots. Updates and deletes leave
+ * the old slot behind as a tombstone, and the index compacts itself once half of its slots are dead.
+ * </p>
+ * <p>
+ * The index is built by streaming the table once the application is ready and is kept current by this node's
+ * writes, which update it directly, and by other nodes' writes, which arrive as cache invalidations and are
+ * re-read from the primary. Writes that land while a build is streaming win over the rows the build reads.
+ * Searches are rejected with {@link IllegalStateException} until the first build has finished.
+ * </p>
+ */
+@Component
+public class UserSearchIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private final UserDao userDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("user-search-index").daemon().factory());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index current;
+    private Index building;
+    private final Set<Long> touchedWhileBuilding = new HashSet<>();
+
+    @Autowired
+    public UserSearchIndex(UserDao userDao, UserCache userCache) {
+        this.userDao = userDao;
+        if (userCache != null) {
+            userCache.onRemoteInvalidation(id -> {
+                if (id == null) {
+                    rebuild();
+                } else {
+                    executor.execute(() -> refresh(id));
+                }
+            });
+        }
+        // Reloads of other nodes' writes must not read a replica that has not caught up yet
+        executor.execute(() -> ReadYourWrites.begin(Long.MAX_VALUE));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the index from the table in the background. The current index keeps serving until the new one is
+     * complete.
+     */
+    public void rebuild() {
+        executor.execute(this::build);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return current != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a user that was just written on this node.
+     */
+    public void put(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (current != null) {
+                current.put(user);
+            }
+            if (building != null) {
+                building.put(user);
+                touchedWhileBuilding.add(user.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (current != null) {
+                current.remove(id);
+            }
+            if (building != null) {
+                building.remove(id);
+                touchedWhileBuilding.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds users whose username or email contains the query, or starts with it, ignoring case.
+     *
+     * @param query   the text to look for
+     * @param prefix  match only at the start of the username or email
+     * @param afterId only users with a larger ID are returned
+     * @param limit   maximum number of users returned
+     * @return matching users in ID order
+     * @throws IllegalStateException if the index has not been built yet
+     */
+    public List<User> search(String query, boolean prefix, long afterId, int limit) {
+        String q = query.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (current == null) {
+                throw new IllegalStateException("The search index is still being built");
+            }
+            return current.search(q, prefix, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            building = new Index();
+            touchedWhileBuilding.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long rows = userDao.streamAllUsers(user -> {
+                lock.writeLock().lock();
+                try {
+                    if (!touchedWhileBuilding.contains(user.getId())) {
+                        building.put(user);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                current = building;
+                logger.info("User search index built: {} users in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to build the user search index: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = null;
+                touchedWhileBuilding.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void refresh(Long id) {
+        try {
+            // Runs right after a change to the user, which a replica may not have yet
+            User user = userDao.getUserByIdFromPrimary(id);
+            if (user != null) {
+                put(user);
+            } else {
+                remove(id);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to refresh user {} in the search index: {}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("users.search.index.size", this, index -> {
+                    index.lock.readLock().lock();
+                    try {
+                        return index.current != null ? index.current.live : 0;
+                    } finally {
+                        index.lock.readLock().unlock();
+                    }
+                })
+                .description("Users in the search index")
+                .register(registry);
+    }
+
+    /**
+     * The slots and trigram postings. Not thread-safe; guarded by the enclosing lock.
+     */
+    private static final class Index {
+
+        private static final Comparator<User> BY_ID_DESCENDING = Comparator.comparing(User::getId, Collections.reverseOrder());
+
+        private User[] users = new User[1024];
+        private String[] usernames = new String[1024];
+        private String[] emails = new String[1024];
+        private int slots;
+        private int live;
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+
+        void put(User user) {
+            remove(user.getId());
+            if (slots == users.length) {
+                users = Arrays.copyOf(users, slots * 2);
+                usernames = Arrays.copyOf(usernames, slots * 2);
+                emails = Arrays.copyOf(emails, slots * 2);
+            }
+            int slot = slots++;
+            String username = lowerCase(user.getUsername());
+            String email = lowerCase(user.getEmail());
+            users[slot] = new User(user.getId(), user.getUsername(), user.getEmail());
+            usernames[slot] = username;
+            emails[slot] = email;
+            slotById.put(user.getId(), slot);
+            live++;
+            addTrigrams(username, slot);
+            addTrigrams(email, slot);
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            users[slot] = null;
+            usernames[slot] = null;
+            emails[slot] = null;
+            live--;
+            if (slots > 1024 && live < slots / 2) {
+                compact();
+            }
+        }
+
+        List<User> search(String q, boolean prefix, long afterId, int limit) {
+            // Max-heap on ID holding the smallest matches seen so far
+            PriorityQueue<User> smallest = new PriorityQueue<>(limit + 1, BY_ID_DESCENDING);
+            if (q.length() < 3 && prefix) {
+                Postings candidates = postings.get(prefixKey(q, q.length()));
+                if (candidates == null) {
+                    return List.of();
+                }
+                for (int i = 0; i < candidates.size; i++) {
+                    collect(candidates.slots[i], q, prefix, afterId, limit, smallest);
+                }
+            } else if (q.length() >= 3) {
+                Postings rarest = null;
+                for (int i = 0; i + 3 <= q.length(); i++) {
+                    Postings candidate = postings.get(trigram(q, i));
+                    if (candidate == null) {
+                        return List.of();
+                    }
+                    if (rarest == null || candidate.size < rarest.size) {
+                        rarest = candidate;
+                    }
+                }
+                for (int i = 0; i < rarest.size; i++) {
+                    collect(rarest.slots[i], q, prefix, afterId, limit, smallest);
+                }
+            } else {
+                for (int slot = 0; slot < slots; slot++) {
+                    collect(slot, q, prefix, afterId, limit, smallest);
+                }
+            }
+            List<User> result = new ArrayList<>(smallest);
+            result.sort(Comparator.comparing(User::getId));
+            return result;
+        }
+
+        private void collect(int slot, String q, boolean prefix, long afterId, int limit, PriorityQueue<User> smallest) {
+            User user = users[slot];
+            if (user == null || user.getId() <= afterId || !matches(usernames[slot], q, prefix)
+                    && !matches(emails[slot], q, prefix)) {
+                return;
+            }
+            if (smallest.size() < limit) {
+                smallest.add(user);
+            } else if (user.getId() < smallest.peek().getId()) {
+                smallest.poll();
+                smallest.add(user);
+            }
+        }
+
+        private static boolean matches(String value, String q, boolean prefix) {
+            return prefix ? value.startsWith(q) : value.contains(q);
+        }
+
+        private void addTrigrams(String value, int slot) {
+            for (int n = 1; n <= 2 && n <= value.length(); n++) {
+                postings.computeIfAbsent(prefixKey(value, n), k -> new Postings()).add(slot);
+            }
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                postings.computeIfAbsent(trigram(value, i), k -> new Postings()).add(slot);
+            }
+        }
+
+        private void compact() {
+            List<User> remaining = new ArrayList<>(live);
+            for (int slot = 0; slot < slots; slot++) {
+                if (users[slot] != null) {
+                    remaining.add(users[slot]);
+                }
+            }
+            int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, remaining.size())) * 2);
+            users = new User[capacity];
+            usernames = new String[capacity];
+            emails = new String[capacity];
+            slots = 0;
+            live = 0;
+            slotById.clear();
+            postings.clear();
+            for (User user : remaining) {
+                put(user);
+            }
+        }
+
+        private static String lowerCase(String value) {
+            return value != null ? value.toLowerCase(Locale.ROOT) : "";
+        }
+
+        private static long trigram(String value, int i) {
+            return ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+
+        // Trigrams use the low 48 bits; the length above them keeps prefix keys apart from trigrams and each other
+        private static long prefixKey(String value, int length) {
+            long key = (long) length << 48;
+            for (int i = 0; i < length; i++) {
+                key |= (long) value.charAt(i) << (32 - 16 * i);
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Growable list of slots in ascending order. A slot is added once even if the trigram occurs more than once
+     * in its values, since slots are indexed one at a time and in increasing order.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
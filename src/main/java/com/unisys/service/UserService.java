@@ -1,17 +1,28 @@
 package com.unisys.service;
 
 import com.unisys.dao.UserDao;
+import com.unisys.dao.UserRowHandler;
+import com.unisys.model.OutboxEvent;
 import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+import com.unisys.model.UserCollectionVersion;
+import com.unisys.model.UserVersion;
 import com.unisys.security.RequiresAccessControl;
 import com.unisys.errors.DaoException;
-import com.unisys.errors.EmailServiceException;
-import com.unisys.model.SystemMessage;
-import com.unisys.controller.MessagePublisher;
 
+import java.io.IOException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -20,17 +31,32 @@ import org.springframework.web.server.ResponseStatusException;
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private static final String WELCOME_SUBJECT = "Welcome to the System";
+    private static final String USERNAME_TAKEN = "Username already exists.";
+
+    @Value("${users.batch.chunk-size:500}")
+    private int batchChunkSize;
+
     private final UserDao userDao;
-    private final EmailService emailService;
-    private final MessagePublisher messagePublisher;
+    private final UserCache userCache;
+    private final UserWriteBehind writeBehind;
+    private final UserSearchIndex searchIndex;
+    private final UsernameFilter usernameFilter;
 
-    public UserService(EmailService emailService, MessagePublisher messagePublisher) {
-        if (emailService == null || messagePublisher == null) {
-            throw new IllegalArgumentException("EmailService and MessagePublisher cannot be null");
+    /**
+     * @param writeBehind buffer for coalesced updates, or {@code null} to write every update directly
+     */
+    @Autowired
+    public UserService(UserDao userDao, UserCache userCache, UserWriteBehind writeBehind, UserSearchIndex searchIndex,
+                       UsernameFilter usernameFilter) {
+        if (userDao == null || userCache == null || searchIndex == null || usernameFilter == null) {
+            throw new IllegalArgumentException("UserDao, UserCache, UserSearchIndex and UsernameFilter cannot be null");
         }
-        this.userDao = new UserDao();
-        this.emailService = emailService;
-        this.messagePublisher = messagePublisher;
+        this.userDao = userDao;
+        this.userCache = userCache;
+        this.writeBehind = writeBehind;
+        this.searchIndex = searchIndex;
+        this.usernameFilter = usernameFilter;
     }
 
     @RequiresAccessControl(role = "ADMIN")
@@ -39,38 +65,170 @@ public class UserService {
             throw new IllegalArgumentException("User and its properties (username, email) cannot be null");
         }
         try {
-            userDao.createUser(user);
-            if (user.getEmail() != null) {
-                emailService.sendEmail(user.getEmail(), "Welcome to the System", "Dear " + user.getUsername() + ",\nWelcome to our system!");
-            }
-            SystemMessage systemMessage = new SystemMessage();
-            systemMessage.setSource("UserService");
-            systemMessage.setMessage("New user created: " + user.getUsername());
-            if (messagePublisher != null) {
-                messagePublisher.publishMessage(systemMessage);
+            if (usernameFilter.isTaken(user.getUsername())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, USERNAME_TAKEN);
             }
-            return "User created successfully and notifications sent.";
+            // Notifications are written to the outbox with the user row and delivered by the OutboxDispatcher,
+            // so mail or broker latency never reaches the caller and a committed user is never reported as failed.
+            userDao.createUser(user, List.of(
+                    new OutboxEvent(OutboxEvent.WELCOME_EMAIL, user.getEmail(), WELCOME_SUBJECT, welcomeBody(user)),
+                    new OutboxEvent(OutboxEvent.SYSTEM_MESSAGE, "UserService", null,
+                            "New user created: " + user.getUsername())));
+            // Evicts a cached "not found" for the new ID and tells other nodes' search indexes about the user
+            userCache.invalidate(user.getId());
+            searchIndex.put(user);
+            usernameFilter.add(user.getUsername());
+            return "User created successfully and notifications queued.";
         } catch (SecurityException e) {
         	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); 
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (DaoException e) {
+            if (isDuplicateKey(e)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, USERNAME_TAKEN, e);
+            }
             logger.error("Database error creating user: {}", e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create user in database", e);
-        } catch (EmailServiceException e) {
-            logger.error("Error sending email: {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to send email", e);
         } catch (Exception e) {
             logger.error("Unexpected error creating user: {}", e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error creating user", e);
         }
     }
 
+    /**
+     * Creates users from a (possibly streamed) sequence, inserting them in JDBC batches of
+     * {@code users.batch.chunk-size}. Each chunk writes a welcome email per created user and one system message
+     * for the chunk to the outbox, in the transaction of its rows, for the {@code OutboxDispatcher} to deliver.
+     * A row that cannot be read ends the batch with a failed result at its position.
+     *
+     * @return one result per row read, in input order
+     */
+    @RequiresAccessControl(role = "ADMIN")
+    public List<UserBatchResult> createUsers(Iterator<User> users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Users cannot be null");
+        }
+        List<UserBatchResult> results = new ArrayList<>();
+        List<User> chunk = new ArrayList<>(batchChunkSize);
+        int index = 0;
+        int chunkStart = 0;
+        while (true) {
+            User user;
+            try {
+                if (!users.hasNext()) {
+                    break;
+                }
+                user = users.next();
+            } catch (RuntimeException e) {
+                createChunk(chunk, chunkStart, results);
+                results.add(UserBatchResult.failed(index, null, "Malformed row: " + e.getMessage()));
+                return results;
+            }
+            if (user == null || user.getUsername() == null || user.getEmail() == null) {
+                createChunk(chunk, chunkStart, results);
+                chunk.clear();
+                results.add(UserBatchResult.failed(index, user, "Username and email are required."));
+                chunkStart = ++index;
+                continue;
+            }
+            chunk.add(user);
+            index++;
+            if (chunk.size() >= batchChunkSize) {
+                createChunk(chunk, chunkStart, results);
+                chunk.clear();
+                chunkStart = index;
+            }
+        }
+        createChunk(chunk, chunkStart, results);
+        return results;
+    }
+
+    private void createChunk(List<User> chunk, int chunkStart, List<UserBatchResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<UserBatchResult> chunkResults = new ArrayList<>(chunk.size());
+        try {
+            // Duplicate-heavy retries are answered from the filter and one lookup, instead of a rejected batch
+            // that is rolled back and replayed row by row
+            Set<String> taken = usernameFilter.findTaken(chunk.stream().map(User::getUsername).toList());
+            List<User> inserts = new ArrayList<>(chunk.size());
+            for (User user : chunk) {
+                if (!taken.add(UsernameFilter.normalize(user.getUsername()))) {
+                    chunkResults.add(UserBatchResult.failed(chunkStart + chunkResults.size(), user, USERNAME_TAKEN));
+                } else {
+                    chunkResults.add(null);
+                    inserts.add(user);
+                }
+            }
+            // Notifications are written to the outbox with the rows, like for a single create
+            Iterator<UserBatchResult> inserted = userDao.createUsers(inserts, 0, UserService::createdEvents).iterator();
+            for (int i = 0; i < chunkResults.size(); i++) {
+                if (chunkResults.get(i) == null) {
+                    UserBatchResult result = inserted.next();
+                    result.setIndex(chunkStart + i);
+                    chunkResults.set(i, result);
+                }
+            }
+        } catch (DaoException e) {
+            logger.error("Database error creating {} users: {}", chunk.size(), e.getMessage(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(UserBatchResult.failed(chunkStart + i, chunk.get(i), "Failed to create user in database"));
+            }
+            return;
+        }
+        results.addAll(chunkResults);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (UserBatchResult.CREATED.equals(chunkResults.get(i).getStatus())) {
+                userCache.invalidate(chunk.get(i).getId());
+                searchIndex.put(chunk.get(i));
+                usernameFilter.add(chunk.get(i).getUsername());
+            }
+        }
+    }
+
+    private static List<OutboxEvent> createdEvents(List<User> created) {
+        if (created.isEmpty()) {
+            return List.of();
+        }
+        List<OutboxEvent> events = new ArrayList<>(created.size() + 1);
+        StringJoiner usernames = new StringJoiner(", ");
+        for (User user : created) {
+            events.add(new OutboxEvent(OutboxEvent.WELCOME_EMAIL, user.getEmail(), WELCOME_SUBJECT, welcomeBody(user)));
+            usernames.add(user.getUsername());
+        }
+        events.add(new OutboxEvent(OutboxEvent.SYSTEM_MESSAGE, "UserService", null,
+                created.size() + " new users created: " + usernames));
+        return events;
+    }
+
+    private static boolean isDuplicateKey(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String welcomeBody(User user) {
+        return "Dear " + user.getUsername() + ",\nWelcome to our system!";
+    }
+
     @RequiresAccessControl(role = "ADMIN")
     public boolean deleteUser(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("ID cannot be null");
         }
         try {
-            return userDao.deleteUser(id);
+            if (isWriteBehind()) {
+                // A pending update must not be applied after the delete
+                writeBehind.flush(id);
+            }
+            boolean deleted = userDao.deleteUser(id);
+            userCache.invalidate(id);
+            searchIndex.remove(id);
+            return deleted;
         } catch (SecurityException e) {
         	throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied", e); 
         } catch (DaoException e) {
@@ -87,25 +245,129 @@ public class UserService {
             throw new IllegalArgumentException("ID and User cannot be null");
         }
         try {
-            return userDao.updateUser(id, user);
+            if (isWriteBehind()) {
+                return writeBehind.submit(id, user).join();
+            }
+            boolean updated = userDao.updateUser(id, user);
+            userCache.invalidate(id);
+            if (updated) {
+                searchIndex.put(new User(id, user.getUsername(), user.getEmail()));
+                usernameFilter.add(user.getUsername());
+            }
+            return updated;
         } catch (Exception e) {
-            logger.error("Error updating user: {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update user", e);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("Error updating user: {}", cause.getMessage(), cause);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update user", cause);
         }
     }
 
+    /**
+     * Queues the update in the write-behind buffer and returns without waiting for it to be written.
+     * Whether the user exists, and whether the write succeeded, is not known to the caller.
+     *
+     * @return {@code false} if write-behind is disabled and nothing was queued
+     */
+    public boolean submitUpdate(Long id, User user) {
+        if (id == null || user == null) {
+            throw new IllegalArgumentException("ID and User cannot be null");
+        }
+        if (!isWriteBehind()) {
+            return false;
+        }
+        writeBehind.submit(id, user);
+        return true;
+    }
+
+    private boolean isWriteBehind() {
+        return writeBehind != null && writeBehind.isEnabled();
+    }
+
     public User getUserById(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("ID cannot be null");
         }
         try {
-            return userDao.getUserById(id);
+            // Cached for the whole TTL, so never from a replica that may not have the last write yet
+            return userCache.get(id, userDao::getUserByIdFromPrimary);
         } catch (Exception e) {
             logger.error("Error retrieving user by ID: {}", e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve user", e);
         }
     }
 
+    /**
+     * Returns the version of a user for conditional requests, from the cache if the user is cached and otherwise
+     * with a primary-key lookup of the version columns only.
+     *
+     * @return the version, or {@code null} if there is no such user
+     */
+    public UserVersion getUserVersion(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        try {
+            User cached = userCache.getIfPresent(id);
+            if (cached != null && cached.getVersion() != null) {
+                return new UserVersion(id, cached.getVersion(), cached.getUpdatedAt());
+            }
+            return userDao.getUserVersion(id);
+        } catch (Exception e) {
+            logger.error("Error retrieving version of user {}: {}", id, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve user", e);
+        }
+    }
+
+    public UserCollectionVersion getCollectionVersion() {
+        try {
+            return userDao.getCollectionVersion();
+        } catch (Exception e) {
+            logger.error("Error retrieving users collection version: {}", e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve users", e);
+        }
+    }
+
+    public List<User> getUsersAfter(long afterId, int limit) {
+        try {
+            return userDao.getUsersAfter(afterId, limit);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error retrieving users after ID {}: {}", afterId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve users", e);
+        }
+    }
+
+    /**
+     * Searches usernames and emails in the in-memory index, without touching the database.
+     *
+     * @throws IllegalStateException if the index is still being built
+     */
+    public List<User> searchUsers(String query, boolean prefix, long afterId, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        return searchIndex.search(query.trim(), prefix, afterId, limit);
+    }
+
+    public long streamAllUsers(UserRowHandler handler) throws IOException {
+        try {
+            return userDao.streamAllUsers(handler);
+        } catch (DaoException e) {
+            logger.error("Error streaming all users: {}", e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve users", e);
+        }
+    }
+
+    public long streamUsersAfter(long afterId, UserRowHandler handler) throws IOException {
+        try {
+            return userDao.streamUsersAfter(afterId, handler);
+        } catch (DaoException e) {
+            logger.error("Error streaming users after ID {}: {}", afterId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve users", e);
+        }
+    }
+
     public List<User> getAllUsers() {
         try {
             return userDao.getAllUsers();
@@ -0,0 +1,307 @@
+package com.unisys.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.unisys.dao.ReadYourWrites;
+import com.unisys.dao.UserDao;
+import com.unisys.errors.DaoException;
+import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opt-in write-behind buffer for user updates, enabled with {@code users.write-behind.enabled}.
+ * <p>
+ * Updates are keyed by user ID; a later update of a pending ID replaces the earlier one, so only the last value is
+ * written and every caller of the coalesced updates gets the same outcome. A single flusher thread writes the pending
+ * updates as one JDBC batch once no update has arrived for {@code users.write-behind.window-ms}, but never later than
+ * {@code users.write-behind.max-delay-ms} after the oldest one, and immediately once
+ * {@code users.write-behind.max-batch} IDs are pending.
+ * </p>
+ * <p>
+ * Guarantees: updates of one ID are applied in the order they were submitted, because batches are written one after
+ * the other by the one flusher thread. A returned future completes only after the batch has committed. Pending updates
+ * are flushed on shutdown, but live only in memory until then: an update whose caller did not wait for the future is
+ * lost if the process dies before the flush. {@link #flush(Long)} lets other writes, like a delete, order themselves
+ * after a pending update.
+ * </p>
+ * <p>
+ * Metrics: {@code users.update.submitted}, {@code users.update.coalesced} (updates replaced before being written),
+ * {@code users.update.coalescing.ratio} (coalesced / submitted), {@code users.update.pending},
+ * {@code users.update.flush.rows} and {@code users.update.flush.latency} (oldest pending update to commit).
+ * </p>
+ */
+@Component
+public class UserWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserWriteBehind.class);
+
+    @Value("${users.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${users.write-behind.window-ms:10}")
+    private long windowMillis = 10;
+
+    @Value("${users.write-behind.max-delay-ms:100}")
+    private long maxDelayMillis = 100;
+
+    @Value("${users.write-behind.max-batch:500}")
+    private int maxBatch = 500;
+
+    private final UserDao userDao;
+    private final UserCache userCache;
+    private final UserSearchIndex searchIndex;
+    private final UsernameFilter usernameFilter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDue = lock.newCondition();
+    private Map<Long, Pending> pending = new LinkedHashMap<>();
+    private long oldestNanos;
+    private long latestNanos;
+    private boolean flushRequested;
+    private boolean running;
+    private Thread flusher;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final Counter submitted;
+    private final Counter coalesced;
+    private final DistributionSummary flushRows;
+    private final Timer flushLatency;
+
+    @Autowired
+    public UserWriteBehind(UserDao userDao, UserCache userCache, UserSearchIndex searchIndex,
+                           UsernameFilter usernameFilter, MeterRegistry meterRegistry) {
+        this.userDao = userDao;
+        this.userCache = userCache;
+        this.searchIndex = searchIndex;
+        this.usernameFilter = usernameFilter;
+        this.submitted = Counter.builder("users.update.submitted")
+                .description("User updates submitted to the write-behind buffer")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("users.update.coalesced")
+                .description("User updates replaced by a later update of the same user before being written")
+                .register(meterRegistry);
+        Gauge.builder("users.update.coalescing.ratio", this, UserWriteBehind::coalescingRatio)
+                .description("Share of submitted user updates that never had to be written")
+                .register(meterRegistry);
+        Gauge.builder("users.update.pending", this, UserWriteBehind::pendingCount)
+                .description("Users with an update waiting to be written")
+                .register(meterRegistry);
+        this.flushRows = DistributionSummary.builder("users.update.flush.rows")
+                .description("Users written per write-behind flush")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("users.update.flush.latency")
+                .description("Time from the oldest pending update to the commit of its batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("user-write-behind").daemon().start(this::drain);
+        logger.info("User write-behind enabled: window {} ms, max delay {} ms, max batch {}",
+                windowMillis, maxDelayMillis, maxBatch);
+    }
+
+    /**
+     * Stops accepting updates and waits for the pending ones to be written.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            flushDue.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an update, replacing any pending update of the same user.
+     *
+     * @return completes with {@code true} once the update is committed, {@code false} if there is no such user,
+     *         or exceptionally if the write failed
+     * @throws IllegalStateException if write-behind is not running
+     */
+    public CompletableFuture<Boolean> submit(Long id, User user) {
+        User update = new User(id, user.getUsername(), user.getEmail());
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("User write-behind is not running");
+            }
+            long now = System.nanoTime();
+            Pending entry = pending.get(id);
+            if (entry == null) {
+                entry = new Pending();
+                pending.put(id, entry);
+                if (pending.size() == 1) {
+                    oldestNanos = now;
+                    flushDue.signal();
+                }
+            } else {
+                coalesced.increment();
+                coalescedCount.incrementAndGet();
+            }
+            entry.user = update;
+            latestNanos = now;
+            if (pending.size() >= maxBatch) {
+                flushDue.signal();
+            }
+            submitted.increment();
+            submittedCount.incrementAndGet();
+            // The write reaches the primary within the max delay, well inside the read-your-writes window
+            ReadYourWrites.recordWrite();
+            return entry.result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending update of the user, if any, without waiting for the window, and waits until it is committed.
+     */
+    public void flush(Long id) {
+        CompletableFuture<Boolean> result;
+        lock.lock();
+        try {
+            Pending entry = pending.get(id);
+            if (entry == null) {
+                return;
+            }
+            result = entry.result;
+            flushRequested = true;
+            flushDue.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            result.join();
+        } catch (RuntimeException e) {
+            // The failure is reported to the callers of the update; the caller here only needed it to be done
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Map<Long, Pending> batch;
+            long oldest;
+            lock.lock();
+            try {
+                while (running && pending.isEmpty()) {
+                    flushDue.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                while (running && !flushRequested && pending.size() < maxBatch) {
+                    long deadline = Math.min(latestNanos + TimeUnit.MILLISECONDS.toNanos(windowMillis),
+                            oldestNanos + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis));
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        flushDue.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                batch = pending;
+                oldest = oldestNanos;
+                pending = new LinkedHashMap<>();
+                flushRequested = false;
+            } finally {
+                lock.unlock();
+            }
+            write(batch, oldest);
+        }
+    }
+
+    private void write(Map<Long, Pending> batch, long oldestNanos) {
+        List<Pending> entries = new ArrayList<>(batch.values());
+        List<User> users = new ArrayList<>(entries.size());
+        for (Pending entry : entries) {
+            users.add(entry.user);
+        }
+        try {
+            List<UserBatchResult> results = userDao.updateUsers(users);
+            flushLatency.record(System.nanoTime() - oldestNanos, TimeUnit.NANOSECONDS);
+            flushRows.record(users.size());
+            for (UserBatchResult result : results) {
+                Pending entry = entries.get(result.getIndex());
+                switch (result.getStatus()) {
+                    case UserBatchResult.UPDATED -> {
+                        userCache.invalidate(entry.user.getId());
+                        searchIndex.put(entry.user);
+                        usernameFilter.add(entry.user.getUsername());
+                        entry.result.complete(true);
+                    }
+                    case UserBatchResult.NOT_FOUND -> entry.result.complete(false);
+                    default -> entry.result.completeExceptionally(new DaoException(result.getError()));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Write-behind flush of {} user updates failed: {}", users.size(), e.getMessage(), e);
+            for (Pending entry : entries) {
+                entry.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private double coalescingRatio() {
+        long total = submittedCount.get();
+        return total == 0 ? 0 : (double) coalescedCount.get() / total;
+    }
+
+    private double pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private User user;
+    }
+}
@@ -0,0 +1,252 @@
+package com.unisys.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.unisys.dao.UserDao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Uniqueness pre-check for usernames, so creates of new usernames skip the existence query and duplicates are
+ * rejected before a row is inserted.
+ * <p>
+ * A {@link BloomFilter} over all usernames answers "definitely not taken" without touching the database; only a
+ * "maybe" is confirmed with a lookup on the primary. The filter is built from the table once the application is
+ * ready, sized for twice the current count but at least {@code users.uniqueness.expected-users} at a target
+ * false-positive rate of {@code users.uniqueness.false-positive-rate}, and is rebuilt larger once it fills past
+ * twice that rate. Usernames written on this node are added as they are written. Usernames that were deleted, or
+ * renamed, stay in the filter and only cost a lookup until the next rebuild.
+ * </p>
+ * <p>
+ * The unique constraint on {@code users.username} remains the authority: a username written by another node since
+ * the last build, or one the collation treats as equal in a way {@link #normalize(String)} does not, still gets
+ * through the pre-check and is rejected by the insert. Email is not pre-checked because it is not unique in the
+ * schema.
+ * </p>
+ * <p>
+ * Metrics: {@code users.uniqueness.checks} tagged {@code result} ({@code skipped}, {@code false_positive},
+ * {@code taken}), {@code users.uniqueness.false-positive-rate} (observed among usernames that were not taken),
+ * {@code users.uniqueness.expected-false-positive-rate} (implied by the filter's fill) and
+ * {@code users.uniqueness.filter.size} in bytes.
+ * </p>
+ */
+@Component
+public class UsernameFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private static final int FILL_CHECK_INTERVAL = 1024;
+
+    @Value("${users.uniqueness.expected-users:1000000}")
+    private long expectedUsers = 1_000_000;
+
+    @Value("${users.uniqueness.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    private final UserDao userDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("username-filter").daemon().factory());
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    private final AtomicLong addsSinceFillCheck = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong falsePositiveCount = new AtomicLong();
+    private volatile Counter skipped;
+    private volatile Counter falsePositives;
+    private volatile Counter taken;
+
+    @Autowired
+    public UsernameFilter(UserDao userDao) {
+        this.userDao = userDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the filter from the table in the background. Checks keep using the current filter meanwhile.
+     */
+    public void rebuild() {
+        executor.execute(this::build);
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * Records a username that was just written on this node.
+     */
+    public void add(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = normalize(username);
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.add(key);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.add(key);
+        }
+        if (filter != null && addsSinceFillCheck.incrementAndGet() >= FILL_CHECK_INTERVAL) {
+            addsSinceFillCheck.set(0);
+            if (filter.expectedFalsePositiveRate() > 2 * falsePositiveRate && building == null) {
+                logger.info("Username filter is past twice its target false-positive rate, rebuilding");
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * @return whether the username is taken, checked against the database only if the filter cannot rule it out
+     */
+    public boolean isTaken(String username) {
+        return !findTaken(List.of(username)).isEmpty();
+    }
+
+    /**
+     * Finds which of the usernames are taken, querying the database only for those the filter cannot rule out.
+     *
+     * @return the taken usernames among the given ones, normalized with {@link #normalize(String)}
+     */
+    public Set<String> findTaken(Collection<String> usernames) {
+        BloomFilter filter = current;
+        List<String> candidates = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            if (filter != null && !filter.mightContain(normalize(username))) {
+                countSkipped();
+            } else {
+                candidates.add(username);
+            }
+        }
+        Set<String> result = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return result;
+        }
+        for (String existing : userDao.findExistingUsernames(candidates)) {
+            result.add(normalize(existing));
+        }
+        if (filter != null) {
+            for (String candidate : candidates) {
+                if (result.contains(normalize(candidate))) {
+                    Counter counter = taken;
+                    if (counter != null) {
+                        counter.increment();
+                    }
+                } else {
+                    falsePositiveCount.incrementAndGet();
+                    Counter counter = falsePositives;
+                    if (counter != null) {
+                        counter.increment();
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Folds case and accents, roughly as the column's case- and accent-insensitive collation compares.
+     */
+    static String normalize(String username) {
+        String lower = username.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return lower;
+    }
+
+    private void countSkipped() {
+        skippedCount.incrementAndGet();
+        Counter counter = skipped;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        try {
+            long capacity = Math.max(expectedUsers, 2 * userDao.countUsers());
+            BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+            building = next;
+            long rows = userDao.streamAllUsers(user -> next.add(normalize(user.getUsername())));
+            current = next;
+            addsSinceFillCheck.set(0);
+            logger.info("Username filter built: {} usernames, {} KB, {} hashes in {} ms", rows,
+                    next.sizeInBytes() / 1024, next.hashCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to build the username filter: {}", e.getMessage(), e);
+        } finally {
+            building = null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        skipped = checks(registry, "skipped");
+        falsePositives = checks(registry, "false_positive");
+        taken = checks(registry, "taken");
+        Gauge.builder("users.uniqueness.false-positive-rate", this, filter -> {
+                    long fp = filter.falsePositiveCount.get();
+                    long notTaken = fp + filter.skippedCount.get();
+                    return notTaken == 0 ? 0 : (double) fp / notTaken;
+                })
+                .description("Share of usernames not taken that still needed a database lookup")
+                .register(registry);
+        Gauge.builder("users.uniqueness.expected-false-positive-rate", this, filter -> {
+                    BloomFilter current = filter.current;
+                    return current != null ? current.expectedFalsePositiveRate() : Double.NaN;
+                })
+                .description("False-positive rate implied by the share of bits set in the username filter")
+                .register(registry);
+        Gauge.builder("users.uniqueness.filter.size", this, filter -> {
+                    BloomFilter current = filter.current;
+                    return current != null ? current.sizeInBytes() : 0;
+                })
+                .description("Memory used by the username filter")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return Counter.builder("users.uniqueness.checks")
+                .description("Username uniqueness checks by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,92 @@
+package com.unisys.tracing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Starts sampled traces and aggregates their spans.
+ * <p>
+ * A fraction {@code tracing.sample-rate} of requests is traced. Every span of a sampled trace is recorded in a
+ * {@code trace.stage} timer tagged with its stage, and the last {@code tracing.recent-traces} traces are kept in
+ * full. Both are served by {@link TracesEndpoint}.
+ * </p>
+ */
+@Component
+public class RequestTracer {
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final int recentLimit;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Deque<Trace.TraceSummary> recent = new ArrayDeque<>();
+
+    public RequestTracer(MeterRegistry meterRegistry,
+                         @Value("${tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${tracing.recent-traces:20}") int recentLimit) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("tracing.sample-rate must be between 0 and 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.recentLimit = recentLimit;
+    }
+
+    /**
+     * Binds a new trace to the calling thread, sampled with the configured probability.
+     *
+     * @param name supplies the trace name; only called for sampled traces
+     * @return the bound trace, which must be {@linkplain Trace#end() ended} on the same thread
+     */
+    Trace begin(Supplier<String> name) {
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        return Trace.begin(sampled ? this : null, sampled ? name.get() : null);
+    }
+
+    void recordStage(String stage, long durationNanos) {
+        stageTimers.computeIfAbsent(stage, s -> Timer.builder("trace.stage")
+                        .description("Latency of sampled request stages")
+                        .tag("stage", s)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void complete(Trace.TraceSummary trace) {
+        if (recentLimit <= 0) {
+            return;
+        }
+        synchronized (recent) {
+            if (recent.size() >= recentLimit) {
+                recent.removeFirst();
+            }
+            recent.addLast(trace);
+        }
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    Map<String, Timer> getStageTimers() {
+        return stageTimers;
+    }
+
+    List<Trace.TraceSummary> getRecentTraces() {
+        synchronized (recent) {
+            return List.copyOf(recent);
+        }
+    }
+}
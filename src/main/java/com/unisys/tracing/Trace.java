@@ -0,0 +1,126 @@
+package com.unisys.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The spans recorded for one sampled request, bound to the thread handling it.
+ * <p>
+ * Code that wants to contribute a span calls {@link #current()} and, if it is not {@code null}, {@link #record}.
+ * For requests that were not sampled the thread holds a no-op trace, so nested stages neither record nor start a
+ * trace of their own; the cost is a thread-local read. Work a request hands to another thread joins its trace with
+ * {@link #runBound(Runnable)}.
+ * </p>
+ */
+public class Trace {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    static final Trace UNSAMPLED = new Trace(null, null);
+
+    private final RequestTracer tracer;
+    private final String name;
+    private final Instant startedAt;
+    private final long startNanos;
+    private final List<Span> spans;
+
+    private Trace(RequestTracer tracer, String name) {
+        this.tracer = tracer;
+        this.name = name;
+        this.startedAt = tracer == null ? null : Instant.now();
+        this.startNanos = System.nanoTime();
+        this.spans = tracer == null ? List.of() : Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * @return the trace of the request being handled by this thread, or {@code null} outside of a traced stage
+     */
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    static Trace begin(RequestTracer tracer, String name) {
+        Trace trace = tracer == null ? UNSAMPLED : new Trace(tracer, name);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Runs the task with this trace bound to the calling thread, for a stage of the request that runs on another
+     * thread than the one that began the trace.
+     */
+    public void runBound(Runnable task) {
+        Trace previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public boolean isSampled() {
+        return tracer != null;
+    }
+
+    /**
+     * Adds a span to this trace and to the per-stage latency histograms. Does nothing for unsampled requests.
+     *
+     * @param stage      coarse stage the span belongs to, e.g. {@code dao}
+     * @param name       what ran, e.g. the DAO operation
+     * @param startNanos {@link System#nanoTime()} when the span started
+     * @param endNanos   {@link System#nanoTime()} when the span ended
+     */
+    public void record(String stage, String name, long startNanos, long endNanos) {
+        if (tracer == null) {
+            return;
+        }
+        long durationNanos = endNanos - startNanos;
+        spans.add(new Span(stage, name, (startNanos - this.startNanos) / 1000, durationNanos / 1000));
+        tracer.recordStage(stage, durationNanos);
+    }
+
+    /**
+     * Unbinds the trace from the thread and, if sampled, publishes it.
+     */
+    void end() {
+        CURRENT.remove();
+        publish();
+    }
+
+    /**
+     * Unbinds the trace from the thread and, if sampled, publishes it once the stage completes, for requests that
+     * are still being handled on other threads.
+     */
+    void endWhenComplete(CompletionStage<?> stage) {
+        CURRENT.remove();
+        if (tracer != null) {
+            stage.whenComplete((result, error) -> publish());
+        }
+    }
+
+    private void publish() {
+        if (tracer != null) {
+            tracer.complete(new TraceSummary(name, startedAt, (System.nanoTime() - startNanos) / 1000, List.copyOf(spans)));
+        }
+    }
+
+    /**
+     * One timed stage within a trace; times are in microseconds, the offset relative to the start of the trace.
+     */
+    public record Span(String stage, String name, long offsetMicros, long durationMicros) {
+    }
+
+    /**
+     * A completed trace as exposed by the {@code traces} Actuator endpoint.
+     */
+    public record TraceSummary(String name, Instant startedAt, long durationMicros, List<Span> spans) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.unisys.tracing;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Joins the trace bound to the current thread, or begins a new one if there is none; closing the scope that began
+ * the trace ends it.
+ */
+public final class TraceScope implements AutoCloseable {
+
+    private final Trace trace;
+    private final boolean root;
+
+    private TraceScope(Trace trace, boolean root) {
+        this.trace = trace;
+        this.root = root;
+    }
+
+    /**
+     * @param name supplies the name of a new trace; only called if one is begun and sampled
+     */
+    public static TraceScope open(RequestTracer tracer, Supplier<String> name) {
+        Trace current = Trace.current();
+        if (current != null) {
+            return new TraceScope(current, false);
+        }
+        return new TraceScope(tracer.begin(name), true);
+    }
+
+    public Trace trace() {
+        return trace;
+    }
+
+    @Override
+    public void close() {
+        if (root) {
+            trace.end();
+        }
+    }
+
+    /**
+     * Closes the scope for a stage that continues asynchronously: a trace begun by this scope is unbound from the
+     * thread now but published only once the stage completes.
+     */
+    public void closeWhenComplete(CompletionStage<?> stage) {
+        if (root) {
+            trace.endWhenComplete(stage);
+        }
+    }
+}
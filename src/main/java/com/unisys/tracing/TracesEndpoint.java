@@ -0,0 +1,53 @@
+package com.unisys.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Actuator endpoint ({@code /management/traces}) with the per-stage latency of sampled requests and the most
+ * recent sampled traces.
+ */
+@Component
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    private final RequestTracer tracer;
+
+    public TracesEndpoint(RequestTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces() {
+        Map<String, Object> stages = new TreeMap<>();
+        tracer.getStageTimers().forEach((stage, timer) -> stages.put(stage, stageStats(timer)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sampleRate", tracer.getSampleRate());
+        body.put("stages", stages);
+        body.put("recent", tracer.getRecentTraces());
+        return body;
+    }
+
+    private static Map<String, Object> stageStats(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return stats;
+    }
+}
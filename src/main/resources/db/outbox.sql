@@ -0,0 +1,13 @@
+-- Outbox for notifications that must follow a committed user write (see OutboxDao).
+CREATE TABLE IF NOT EXISTS user_outbox (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type      VARCHAR(32)  NOT NULL,
+    destination     VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255),
+    body            TEXT         NOT NULL,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',
+    attempts        INT          NOT NULL DEFAULT 0,
+    created_at      TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    next_attempt_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_user_outbox_due (status, next_attempt_at, id)
+);
@@ -0,0 +1,2 @@
+-- Usernames identify a user across systems: POST /users/import upserts by username (see UserDao#upsertUsers).
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
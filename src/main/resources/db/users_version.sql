@@ -0,0 +1,4 @@
+-- Row versions behind the ETag and Last-Modified headers of /users (see UserDao#getUserVersion).
+-- UserDao bumps version and sets updated_at on every update. Existing rows start at version 1.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE users ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
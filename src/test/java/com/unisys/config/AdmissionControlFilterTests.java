@@ -0,0 +1,68 @@
+package com.unisys.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControlFilterTests {
+
+	// A latency threshold of 0 ms makes every sampled request count as slow
+	private final ConcurrencyLimiter limiter = new ConcurrencyLimiter("users", 10, 5, 12, 0, true, 0,
+			new SimpleMeterRegistry());
+	private final AdmissionControlFilter filter = new AdmissionControlFilter(List.of(limiter));
+
+	@Test
+	void slowImportDoesNotShrinkTheUsersLimit() {
+		handle("POST", "users/import");
+
+		assertThat(limiter.getLimit()).isEqualTo(10);
+		assertThat(limiter.getInFlight()).isZero();
+
+		handle("GET", "users/1");
+
+		assertThat(limiter.getLimit()).isEqualTo(9);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	private void handle(String method, String path) {
+		Map<String, Object> properties = new HashMap<>();
+		ContainerRequest request = mock(ContainerRequest.class);
+		ExtendedUriInfo uriInfo = mock(ExtendedUriInfo.class);
+		when(uriInfo.getPath()).thenReturn(path);
+		when(request.getUriInfo()).thenReturn(uriInfo);
+		when(request.getMethod()).thenReturn(method);
+		doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1)))
+				.when(request).setProperty(anyString(), any());
+		when(request.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.getArgument(0)));
+		doAnswer(invocation -> properties.remove(invocation.getArgument(0)))
+				.when(request).removeProperty(anyString());
+
+		filter.filter(request);
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+
+		ContainerResponse response = mock(ContainerResponse.class);
+		when(response.getStatus()).thenReturn(200);
+		for (RequestEvent.Type type : List.of(RequestEvent.Type.RESP_FILTERS_START, RequestEvent.Type.FINISHED)) {
+			RequestEvent event = mock(RequestEvent.class);
+			when(event.getType()).thenReturn(type);
+			when(event.getContainerRequest()).thenReturn(request);
+			when(event.getContainerResponse()).thenReturn(response);
+			filter.onRequest(event).onEvent(event);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.unisys.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimiterTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void reservesPartOfTheLimitForPriorityRequests() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("users", 10, 1, 10, 100, false, 0.2, registry);
+
+		for (int i = 0; i < 8; i++) {
+			assertThat(limiter.tryAcquire(false)).isTrue();
+		}
+		assertThat(limiter.tryAcquire(false)).isFalse();
+		assertThat(limiter.tryAcquire(true)).isTrue();
+		assertThat(limiter.tryAcquire(true)).isTrue();
+		assertThat(limiter.tryAcquire(true)).isFalse();
+
+		assertThat(registry.get("admission.rejected").tag("priority", "normal").counter().count()).isEqualTo(1);
+		assertThat(registry.get("admission.rejected").tag("priority", "high").counter().count()).isEqualTo(1);
+		assertThat(registry.get("admission.inflight").gauge().value()).isEqualTo(10);
+	}
+
+	@Test
+	void adaptiveLimitBacksOffOnSlowOrShedRequestsAndGrowsWhileBusy() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("users", 10, 5, 12, 100, true, 0, registry);
+		long fast = TimeUnit.MILLISECONDS.toNanos(10);
+		long slow = TimeUnit.MILLISECONDS.toNanos(500);
+
+		limiter.tryAcquire(false);
+		limiter.release(slow, false);
+		assertThat(limiter.getLimit()).isEqualTo(9);
+		limiter.tryAcquire(false);
+		limiter.release(fast, true);
+		assertThat(limiter.getLimit()).isEqualTo(8);
+
+		for (int i = 0; i < 8; i++) {
+			limiter.tryAcquire(false);
+		}
+		for (int i = 0; i < 8; i++) {
+			limiter.release(fast, false);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(11);
+		assertThat(registry.get("admission.limit.changes").tag("direction", "decrease").counter().count()).isEqualTo(2);
+		assertThat(registry.get("admission.limit.changes").tag("direction", "increase").counter().count()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,70 @@
+package com.unisys.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.Test;
+
+class ReplicaDataSourceTests {
+
+	@Test
+	void roundRobinSkipsReplicasThatFail() throws SQLException {
+		Connection first = mock(Connection.class);
+		Connection third = mock(Connection.class);
+		ReplicaDataSource replicas = new ReplicaDataSource(List.of(replica(first, 0), failingReplica(), replica(third, 0)),
+				ReplicaDataSource.Selection.ROUND_ROBIN);
+
+		assertThat(replicas.getConnection()).isSameAs(first);
+		assertThat(replicas.getConnection()).isSameAs(third);
+		assertThat(replicas.getConnection()).isSameAs(third);
+		assertThat(replicas.getConnection()).isSameAs(first);
+	}
+
+	@Test
+	void leastConnectionsPicksTheIdlestReplica() throws SQLException {
+		Connection idle = mock(Connection.class);
+		ReplicaDataSource replicas = new ReplicaDataSource(List.of(replica(mock(Connection.class), 5), replica(idle, 1)),
+				ReplicaDataSource.Selection.parse("least-connections"));
+
+		assertThat(replicas.getConnection()).isSameAs(idle);
+		assertThat(replicas.getConnection()).isSameAs(idle);
+	}
+
+	@Test
+	void failsWhenEveryReplicaFails() {
+		ReplicaDataSource replicas = new ReplicaDataSource(List.of(failingReplica(), failingReplica()),
+				ReplicaDataSource.Selection.ROUND_ROBIN);
+
+		assertThatThrownBy(replicas::getConnection).isInstanceOf(SQLException.class)
+				.satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+	}
+
+	private static InstrumentedDataSource replica(Connection connection, int active) throws SQLException {
+		BasicDataSource pool = mock(BasicDataSource.class);
+		when(pool.getConnection()).thenReturn(connection);
+		when(pool.getNumActive()).thenReturn(active);
+		return new InstrumentedDataSource(pool, "replica") {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return pool.getConnection();
+			}
+		};
+	}
+
+	private static InstrumentedDataSource failingReplica() {
+		BasicDataSource pool = mock(BasicDataSource.class);
+		return new InstrumentedDataSource(pool, "replica") {
+			@Override
+			public Connection getConnection() throws SQLException {
+				throw new SQLException("Connection refused", "08S01");
+			}
+		};
+	}
+}
@@ -0,0 +1,60 @@
+package com.unisys.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.unisys.model.User;
+
+class UserExportWriterTests {
+
+	@Test
+	void ndjsonWritesOneObjectPerLineWithSelectedColumns() throws IOException {
+		String output = export(UserExportWriter.Format.NDJSON, "id,updatedAt,version");
+
+		assertThat(output).isEqualTo("""
+				{"id":1,"updatedAt":"2024-05-01T10:15:30.123Z","version":3}
+				{"id":2,"updatedAt":null,"version":null}
+				""");
+	}
+
+	@Test
+	void csvQuotesFieldsThatNeedIt() throws IOException {
+		String output = export(UserExportWriter.Format.parse("CSV"), null);
+
+		assertThat(output).isEqualTo("id,username,email\r\n"
+				+ "1,alice,alice@example.com\r\n"
+				+ "2,\"o\"\"brien, jr\",\r\n");
+	}
+
+	@Test
+	void rejectsUnknownColumns() {
+		assertThatThrownBy(() -> UserExportWriter.Column.parse("id,password"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("password");
+	}
+
+	private static String export(UserExportWriter.Format format, String columns) throws IOException {
+		User alice = new User(1L, "alice", "alice@example.com");
+		alice.setVersion(3L);
+		alice.setUpdatedAt(Instant.parse("2024-05-01T10:15:30.123Z"));
+		User obrien = new User(2L, "o\"brien, jr", null);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (UserExportWriter writer = UserExportWriter.create(format, UserExportWriter.Column.parse(columns), out,
+				new JsonFactory())) {
+			for (User user : List.of(alice, obrien)) {
+				writer.handle(user);
+			}
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,50 @@
+package com.unisys.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.model.SystemMessage;
+
+class SystemMessageCodecTests {
+
+	@Test
+	void binaryRoundTripKeepsNullsAndUnicode() throws IOException {
+		BinarySystemMessageCodec codec = new BinarySystemMessageCodec();
+		SystemMessage decoded = codec.decode(codec.encode(message("UserService", null)));
+		assertThat(decoded.getSource()).isEqualTo("UserService");
+		assertThat(decoded.getMessage()).isNull();
+
+		decoded = codec.decode(codec.encode(message(null, "Nouvel utilisateur: Zoë ✓")));
+		assertThat(decoded.getSource()).isNull();
+		assertThat(decoded.getMessage()).isEqualTo("Nouvel utilisateur: Zoë ✓");
+	}
+
+	@Test
+	void binaryRejectsTruncatedBody() {
+		BinarySystemMessageCodec codec = new BinarySystemMessageCodec();
+		byte[] body = codec.encode(message("UserService", "New user created: jane"));
+		assertThatThrownBy(() -> codec.decode(Arrays.copyOf(body, body.length - 3))).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void jsonRoundTrip() throws IOException {
+		JsonSystemMessageCodec codec = new JsonSystemMessageCodec(new ObjectMapper());
+		SystemMessage decoded = codec.decode(codec.encode(message("UserService", "New user created: jane")));
+		assertThat(decoded.getSource()).isEqualTo("UserService");
+		assertThat(decoded.getMessage()).isEqualTo("New user created: jane");
+	}
+
+	private static SystemMessage message(String source, String text) {
+		SystemMessage systemMessage = new SystemMessage();
+		systemMessage.setSource(source);
+		systemMessage.setMessage(text);
+		return systemMessage;
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.unisys.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import com.unisys.dao.UserDao;
+import com.unisys.service.EmailService;
+import com.unisys.service.UserCountSnapshot;
+
+class StudentSchedulerTests {
+
+	@Test
+	void jobsShareOneCountQueryAndNeverReadTheTable() throws Exception {
+		UserDao userDao = mock(UserDao.class);
+		EmailService emailService = mock(EmailService.class);
+		when(userDao.countUsers()).thenReturn(20L);
+
+		StudentScheduler scheduler = new StudentScheduler(new UserCountSnapshot(userDao, 60_000), emailService);
+		scheduler.logStudentCount();
+		scheduler.notifyOnThreshold();
+
+		verify(userDao, times(1)).countUsers();
+		verify(userDao, never()).getAllUsers();
+		verify(userDao, never()).streamAllUsers(any());
+		verify(emailService).sendEmailOrDefer(anyString(), eq("Student Threshold Alert"), anyString());
+	}
+
+	@Test
+	void expiredSnapshotIsRefreshed() {
+		UserDao userDao = mock(UserDao.class);
+		when(userDao.countUsers()).thenReturn(3L, 4L);
+
+		UserCountSnapshot snapshot = new UserCountSnapshot(userDao, 0);
+		StudentScheduler scheduler = new StudentScheduler(snapshot, mock(EmailService.class));
+		scheduler.logStudentCount();
+		scheduler.logStudentCount();
+
+		verify(userDao, times(2)).countUsers();
+		verify(userDao, never()).getAllUsers();
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	@Test
+	void hasNoFalseNegativesAndStaysNearTheTargetFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("user" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("user" + i)).isTrue();
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(200);
+		assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+		assertThat(filter.sizeInBytes()).isLessThan(16 * 1024);
+	}
+
+	@Test
+	void usernamesAreComparedWithoutCaseOrAccents() {
+		assertThat(UsernameFilter.normalize("José")).isEqualTo(UsernameFilter.normalize("jose"));
+		assertThat(UsernameFilter.normalize("Alice")).isEqualTo("alice");
+	}
+}
@@ -0,0 +1,78 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.SimpleStatusAggregator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.actuate.health.StatusAggregator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachedHealthIndicatorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void servesTheLastProbeResultWithoutProbingAgain() {
+		AtomicInteger probes = new AtomicInteger();
+		CachedHealthIndicator indicator = indicator(60_000, builder -> {
+			if (probes.incrementAndGet() > 1) {
+				throw new IllegalStateException("connection refused");
+			}
+			builder.withDetail("database", "MySQL");
+		});
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+		indicator.probe();
+		for (int i = 0; i < 100; i++) {
+			Health health = indicator.health();
+			assertThat(health.getStatus()).isEqualTo(Status.UP);
+			assertThat(health.getDetails()).containsEntry("database", "MySQL").containsEntry("stale", false)
+					.containsKeys("checkedAt", "ageMs", "latencyMs");
+		}
+		assertThat(probes).hasValue(1);
+
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat(registry.get("health.probe").tag("name", "test").tag("status", "up").timer().count()).isEqualTo(1);
+		assertThat(registry.get("health.probe").tag("name", "test").tag("status", "down").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void oldResultIsReportedAsStale() {
+		CachedHealthIndicator indicator = indicator(-1, builder -> { });
+		indicator.probe();
+
+		Health health = indicator.health();
+		assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+		assertThat(health.getDetails()).containsEntry("stale", true).containsEntry("lastStatus", "UP");
+	}
+
+	@Test
+	void hungProbeMakesTheAggregateHealthNotUp() {
+		CachedHealthIndicator neverProbed = indicator(-1, builder -> { });
+		CachedHealthIndicator stale = indicator(-1, builder -> { });
+		stale.probe();
+		StatusAggregator aggregator = new SimpleStatusAggregator();
+
+		assertThat(aggregator.getAggregateStatus(Status.UP, neverProbed.health().getStatus())).isEqualTo(Status.DOWN);
+		assertThat(aggregator.getAggregateStatus(Status.UP, stale.health().getStatus())).isEqualTo(Status.DOWN);
+	}
+
+	private CachedHealthIndicator indicator(long staleAfterMillis, Check check) {
+		return new CachedHealthIndicator("test", 10_000, staleAfterMillis, registry) {
+			@Override
+			protected void doHealthCheck(Health.Builder builder) throws Exception {
+				check.run(builder);
+			}
+		};
+	}
+
+	private interface Check {
+		void run(Health.Builder builder) throws Exception;
+	}
+}
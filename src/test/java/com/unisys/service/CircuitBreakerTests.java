@@ -0,0 +1,72 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CircuitBreakerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void opensOnFailureRateAndClosesAfterSuccessfulProbes() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("mail", 4, 4, 50, 100, 60_000, 0, 2, 10, registry);
+
+		breaker.execute(() -> "sent");
+		breaker.execute(() -> "sent");
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> breaker.execute(() -> { throw new IOException("connection refused"); }))
+					.isInstanceOf(IOException.class);
+		}
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		// The open duration is zero, so the next calls are half-open probes
+		assertThat(breaker.execute(() -> "sent")).isEqualTo("sent");
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		breaker.execute(() -> "sent");
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(registry.get("circuitbreaker.transitions").tag("state", "open").counter().count()).isEqualTo(1);
+		assertThat(registry.get("circuitbreaker.calls").tag("outcome", "failure").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void refusesCallsWhileOpenOrWhenTheBulkheadIsFull() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("broker", 2, 2, 50, 100, 60_000, 60_000, 1, 1, registry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		try {
+			caller.submit(() -> breaker.execute(() -> {
+				started.countDown();
+				release.await();
+				return null;
+			}));
+			started.await();
+			assertThatThrownBy(() -> breaker.execute(() -> "sent"))
+					.isInstanceOf(CircuitBreaker.CallNotPermittedException.class);
+			assertThat(breaker.getAvailableConcurrentCalls()).isZero();
+			release.countDown();
+		} finally {
+			caller.shutdown();
+		}
+
+		while (breaker.getAvailableConcurrentCalls() == 0) {
+			Thread.onSpinWait();
+		}
+		assertThatThrownBy(() -> breaker.execute(() -> { throw new IOException("broker down"); }))
+				.isInstanceOf(IOException.class);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> breaker.execute(() -> "sent"))
+				.satisfies(e -> assertThat(CircuitBreaker.isNotPermitted(e)).isTrue());
+		assertThat(registry.get("circuitbreaker.calls").tag("outcome", "bulkhead_full").counter().count()).isEqualTo(1);
+		assertThat(registry.get("circuitbreaker.calls").tag("outcome", "not_permitted").counter().count()).isEqualTo(1);
+	}
+}
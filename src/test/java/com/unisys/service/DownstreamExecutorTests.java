@@ -0,0 +1,63 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DownstreamExecutorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final DownstreamExecutor executor = new DownstreamExecutor("test", 1, 1, 200, registry);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void shutdown() throws InterruptedException {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	void rejectsCallsOnceThreadsAndQueueAreFull() throws Exception {
+		CompletableFuture<String> running = executor.supply(() -> {
+			release.await();
+			return "done";
+		});
+		CompletableFuture<String> queued = executor.supply(() -> "queued");
+		CompletableFuture<String> rejected = executor.supply(() -> "rejected");
+
+		assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(RejectedExecutionException.class);
+		release.countDown();
+		assertThat(running.get()).isEqualTo("done");
+		assertThat(queued.get()).isEqualTo("queued");
+		assertThat(registry.get("executor.rejected").tag("name", "test").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void timesOutAndDropsCallsThatAreStillQueued() throws Exception {
+		executor.supply(() -> {
+			release.await();
+			return null;
+		});
+		AtomicBoolean ran = new AtomicBoolean();
+		CompletableFuture<Boolean> queued = executor.supply(() -> ran.getAndSet(true));
+
+		assertThatThrownBy(queued::get).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(TimeoutException.class);
+		release.countDown();
+		executor.shutdown();
+		assertThat(ran).isFalse();
+		assertThat(registry.get("executor.timeouts").tag("name", "test").counter().count()).isEqualTo(2);
+	}
+}
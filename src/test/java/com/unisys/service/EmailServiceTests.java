@@ -0,0 +1,42 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.unisys.dao.OutboxDao;
+import com.unisys.model.OutboxEvent;
+
+class EmailServiceTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void defersOnlyTheEmailsThatFailed() {
+		JavaMailSender mailSender = mock(JavaMailSender.class);
+		OutboxDao outboxDao = mock(OutboxDao.class);
+		doAnswer(invocation -> {
+			SimpleMailMessage second = invocation.getArgument(1);
+			throw new MailSendException(Map.of(second, new IllegalStateException("mailbox full")));
+		}).when(mailSender).send(any(SimpleMailMessage[].class));
+		EmailService emailService = new EmailService(mailSender, null, outboxDao);
+
+		boolean sent = emailService.sendEmailsOrDefer("Hello", List.of(
+				new EmailService.Email("a@example.com", "first"), new EmailService.Email("b@example.com", "second")));
+
+		assertThat(sent).isFalse();
+		ArgumentCaptor<List<OutboxEvent>> deferred = ArgumentCaptor.forClass(List.class);
+		verify(outboxDao).enqueue(deferred.capture());
+		assertThat(deferred.getValue()).extracting(OutboxEvent::getDestination).containsExactly("b@example.com");
+	}
+}
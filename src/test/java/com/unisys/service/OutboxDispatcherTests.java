@@ -0,0 +1,75 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.unisys.controller.MessagePublisher;
+import com.unisys.dao.OutboxDao;
+import com.unisys.model.OutboxEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboxDispatcherTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sendsEveryEventToTheSameRecipient() {
+		OutboxDao outboxDao = mock(OutboxDao.class);
+		EmailService emailService = mock(EmailService.class);
+		List<OutboxEvent> events = List.of(event(1, "Hello", "first"), event(2, "Hello", "second"));
+		when(outboxDao.dispatchDue(anyInt(), anyLong(), anyInt(), any(), any())).thenAnswer(invocation -> {
+			invocation.getArgument(4, Consumer.class).accept(events);
+			return events.size();
+		});
+
+		new OutboxDispatcher(outboxDao, emailService, mock(MessagePublisher.class), new SimpleMeterRegistry())
+				.dispatchOnce();
+
+		ArgumentCaptor<List<EmailService.Email>> sent = ArgumentCaptor.forClass(List.class);
+		verify(emailService).sendEmails(eq("Hello"), sent.capture());
+		assertThat(sent.getValue()).containsExactly(new EmailService.Email("shared@example.com", "first"),
+				new EmailService.Email("shared@example.com", "second"));
+		assertThat(events).allMatch(OutboxEvent::isDispatched);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void retriesOnlyTheEmailsTheServerDidNotTake() {
+		OutboxDao outboxDao = mock(OutboxDao.class);
+		EmailService emailService = mock(EmailService.class);
+		List<OutboxEvent> events = List.of(event(1, "Hello", "first"), event(2, "Hello", "second"));
+		when(outboxDao.dispatchDue(anyInt(), anyLong(), anyInt(), any(), any())).thenAnswer(invocation -> {
+			invocation.getArgument(4, Consumer.class).accept(events);
+			return events.size();
+		});
+		when(emailService.sendEmails(eq("Hello"), any()))
+				.thenReturn(List.of(new EmailService.Email("shared@example.com", "second")));
+
+		new OutboxDispatcher(outboxDao, emailService, mock(MessagePublisher.class), new SimpleMeterRegistry())
+				.dispatchOnce();
+
+		assertThat(events.get(0).isDispatched()).isTrue();
+		assertThat(events.get(1).isDispatched()).isFalse();
+		assertThat(events.get(1).isDeferred()).isFalse();
+	}
+
+	private static OutboxEvent event(long id, String subject, String body) {
+		OutboxEvent event = new OutboxEvent(OutboxEvent.EMAIL, "shared@example.com", subject, body);
+		event.setId(id);
+		event.setCreatedAt(Instant.now());
+		return event;
+	}
+}
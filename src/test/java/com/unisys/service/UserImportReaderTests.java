@@ -0,0 +1,65 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unisys.model.User;
+
+class UserImportReaderTests {
+
+	@Test
+	void ndjsonReportsMalformedLinesAndContinues() throws IOException {
+		UserImportReader reader = UserImportReader.ndjson(new StringReader(
+				"{\"username\":\"alice\",\"email\":\"alice@example.com\"}\r\n"
+						+ "\n"
+						+ "{\"username\":\n"
+						+ "{\"username\":\"bob\",\"email\":\"bob@example.com\"}"),
+				new ObjectMapper().readerFor(User.class));
+
+		UserImportReader.Row alice = reader.next();
+		UserImportReader.Row broken = reader.next();
+		UserImportReader.Row bob = reader.next();
+
+		assertThat(alice.line()).isEqualTo(1);
+		assertThat(alice.user().getUsername()).isEqualTo("alice");
+		assertThat(broken.line()).isEqualTo(3);
+		assertThat(broken.error()).startsWith("Malformed JSON");
+		assertThat(bob.line()).isEqualTo(4);
+		assertThat(bob.user().getEmail()).isEqualTo("bob@example.com");
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void csvMapsColumnsByHeaderAndKeepsLineNumbersAcrossQuotedBreaks() throws IOException {
+		UserImportReader reader = UserImportReader.csv(new StringReader(
+				"id,Email,username\n"
+						+ "7,\"o\"\"brien@example.com\",\"multi\nline\"\n"
+						+ "8\n"
+						+ "9,carol@example.com,carol\n"));
+
+		UserImportReader.Row quoted = reader.next();
+		UserImportReader.Row shortRow = reader.next();
+		UserImportReader.Row carol = reader.next();
+
+		assertThat(quoted.line()).isEqualTo(2);
+		assertThat(quoted.user().getUsername()).isEqualTo("multi\nline");
+		assertThat(quoted.user().getEmail()).isEqualTo("o\"brien@example.com");
+		assertThat(shortRow.line()).isEqualTo(4);
+		assertThat(shortRow.error()).contains("found 1");
+		assertThat(carol.line()).isEqualTo(5);
+		assertThat(carol.user().getUsername()).isEqualTo("carol");
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void csvRequiresUsernameAndEmailColumns() {
+		assertThatThrownBy(() -> UserImportReader.csv(new StringReader("id,username\n1,alice\n")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
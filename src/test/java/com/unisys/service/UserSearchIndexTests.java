@@ -0,0 +1,79 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.unisys.dao.UserDao;
+import com.unisys.dao.UserRowHandler;
+import com.unisys.model.User;
+
+class UserSearchIndexTests {
+
+	private final UserDao userDao = mock(UserDao.class);
+	private final UserSearchIndex index = new UserSearchIndex(userDao, null);
+
+	@BeforeEach
+	void build() throws Exception {
+		List<User> users = List.of(
+				new User(1L, "alice", "alice@example.com"),
+				new User(2L, "Bob", "bob@corp.example.org"),
+				new User(3L, "carol", "carol.bobson@example.com"),
+				new User(4L, "dave", "dave@example.com"));
+		when(userDao.streamAllUsers(any())).thenAnswer(invocation -> {
+			UserRowHandler handler = invocation.getArgument(0);
+			for (User user : users) {
+				handler.handle(user);
+			}
+			return (long) users.size();
+		});
+		assertThatThrownBy(() -> index.search("bob", false, 0, 10)).isInstanceOf(IllegalStateException.class);
+		index.rebuild();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!index.isReady() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	@AfterEach
+	void stop() {
+		index.stop();
+	}
+
+	@Test
+	void matchesSubstringsAndPrefixesIgnoringCase() {
+		assertThat(ids(index.search("BOB", false, 0, 10))).containsExactly(2L, 3L);
+		assertThat(ids(index.search("bob", true, 0, 10))).containsExactly(2L);
+		assertThat(ids(index.search("e", true, 0, 10))).isEmpty();
+		assertThat(ids(index.search("ol", false, 0, 10))).containsExactly(3L);
+		assertThat(ids(index.search("xyz", false, 0, 10))).isEmpty();
+	}
+
+	@Test
+	void pagesInIdOrder() {
+		assertThat(ids(index.search("example", false, 0, 2))).containsExactly(1L, 2L);
+		assertThat(ids(index.search("example", false, 2, 2))).containsExactly(3L, 4L);
+	}
+
+	@Test
+	void reflectsUpdatesAndDeletes() {
+		index.put(new User(1L, "alicia", "alicia@other.net"));
+		index.remove(4L);
+
+		assertThat(ids(index.search("alice", false, 0, 10))).isEmpty();
+		assertThat(ids(index.search("other.net", false, 0, 10))).containsExactly(1L);
+		assertThat(ids(index.search("dave", false, 0, 10))).isEmpty();
+	}
+
+	private static List<Long> ids(List<User> users) {
+		return users.stream().map(User::getId).toList();
+	}
+}
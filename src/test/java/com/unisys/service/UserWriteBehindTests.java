@@ -0,0 +1,84 @@
+package com.unisys.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.unisys.dao.UserDao;
+import com.unisys.model.User;
+import com.unisys.model.UserBatchResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserWriteBehindTests {
+
+	private final UserDao userDao = mock(UserDao.class);
+	private final UserCache userCache = mock(UserCache.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final UserSearchIndex searchIndex = mock(UserSearchIndex.class);
+	private final UserWriteBehind writeBehind = new UserWriteBehind(userDao, userCache, searchIndex,
+			mock(UsernameFilter.class), registry);
+
+	@AfterEach
+	void stop() throws InterruptedException {
+		writeBehind.stop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void coalescesUpdatesOfOneUserIntoTheLastValue() {
+		when(userDao.updateUsers(anyList())).thenAnswer(invocation -> {
+			List<User> users = invocation.getArgument(0);
+			return List.of(UserBatchResult.updated(0, users.get(0)), UserBatchResult.notFound(1, users.get(1)));
+		});
+		start(1000, 5000);
+
+		CompletableFuture<Boolean> first = writeBehind.submit(1L, new User(null, "alice", "old@example.com"));
+		CompletableFuture<Boolean> missing = writeBehind.submit(2L, new User(null, "bob", "bob@example.com"));
+		CompletableFuture<Boolean> last = writeBehind.submit(1L, new User(null, "alice", "new@example.com"));
+		writeBehind.flush(1L);
+
+		assertThat(first.join()).isTrue();
+		assertThat(last).isSameAs(first);
+		assertThat(missing.join()).isFalse();
+		ArgumentCaptor<List<User>> batch = ArgumentCaptor.forClass(List.class);
+		verify(userDao, times(1)).updateUsers(batch.capture());
+		assertThat(batch.getValue()).extracting(User::getId, User::getEmail)
+				.containsExactly(tuple(1L, "new@example.com"),
+						tuple(2L, "bob@example.com"));
+		verify(userCache).invalidate(1L);
+		verify(searchIndex).put(batch.getValue().get(0));
+		assertThat(registry.get("users.update.coalescing.ratio").gauge().value()).isEqualTo(1.0 / 3);
+	}
+
+	@Test
+	void flushesWithinTheMaximumDelay() {
+		when(userDao.updateUsers(anyList())).thenAnswer(invocation -> {
+			List<User> users = invocation.getArgument(0);
+			return List.of(UserBatchResult.updated(0, users.get(0)));
+		});
+		start(10, 50);
+
+		assertThat(writeBehind.submit(1L, new User(null, "alice", "alice@example.com")).join()).isTrue();
+		assertThat(registry.get("users.update.flush.latency").timer().count()).isEqualTo(1);
+	}
+
+	private void start(long windowMillis, long maxDelayMillis) {
+		ReflectionTestUtils.setField(writeBehind, "enabled", true);
+		ReflectionTestUtils.setField(writeBehind, "windowMillis", windowMillis);
+		ReflectionTestUtils.setField(writeBehind, "maxDelayMillis", maxDelayMillis);
+		writeBehind.start();
+	}
+}
@@ -0,0 +1,69 @@
+package com.unisys.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestTracerTests {
+
+	@Test
+	void sampledTraceRecordsNestedSpansAndStageHistograms() {
+		RequestTracer tracer = new RequestTracer(new SimpleMeterRegistry(), 1.0, 10);
+
+		try (TraceScope request = TraceScope.open(tracer, () -> "UserResource.createUser(..)")) {
+			long start = System.nanoTime();
+			try (TraceScope nested = TraceScope.open(tracer, () -> "EmailService.sendEmail(..)")) {
+				assertThat(nested.trace()).isSameAs(request.trace());
+				Trace.current().record("dao", "createUser", start, System.nanoTime());
+			}
+			request.trace().record("controller", "UserResource.createUser(..)", start, System.nanoTime());
+		}
+
+		assertThat(Trace.current()).isNull();
+		assertThat(tracer.getRecentTraces()).singleElement().satisfies(trace -> {
+			assertThat(trace.name()).isEqualTo("UserResource.createUser(..)");
+			assertThat(trace.spans()).extracting(Trace.Span::stage).containsExactly("dao", "controller");
+		});
+		@SuppressWarnings("unchecked")
+		Map<String, Map<String, Object>> stages = (Map<String, Map<String, Object>>) new TracesEndpoint(tracer).traces().get("stages");
+		assertThat(stages).containsOnlyKeys("controller", "dao");
+		assertThat(stages.get("dao")).containsEntry("count", 1L).containsKey("p99Ms");
+	}
+
+	@Test
+	void asynchronousStageIsPublishedOnceItCompletes() {
+		RequestTracer tracer = new RequestTracer(new SimpleMeterRegistry(), 1.0, 10);
+		CompletableFuture<String> response = new CompletableFuture<>();
+
+		TraceScope request = TraceScope.open(tracer, () -> "UserResource.getUserById(..)");
+		Trace trace = request.trace();
+		request.closeWhenComplete(response);
+		assertThat(Trace.current()).isNull();
+		assertThat(tracer.getRecentTraces()).isEmpty();
+
+		trace.runBound(() -> Trace.current().record("dao", "getUserById", System.nanoTime(), System.nanoTime()));
+		response.complete("ok");
+
+		assertThat(tracer.getRecentTraces()).singleElement()
+				.satisfies(t -> assertThat(t.spans()).extracting(Trace.Span::name).containsExactly("getUserById"));
+	}
+
+	@Test
+	void unsampledTraceRecordsNothing() {
+		RequestTracer tracer = new RequestTracer(new SimpleMeterRegistry(), 0.0, 10);
+
+		try (TraceScope request = TraceScope.open(tracer, () -> "UserResource.getUserById(..)")) {
+			assertThat(request.trace().isSampled()).isFalse();
+			Trace.current().record("dao", "getUserById", System.nanoTime(), System.nanoTime());
+		}
+
+		assertThat(Trace.current()).isNull();
+		assertThat(tracer.getRecentTraces()).isEmpty();
+		assertThat(tracer.getStageTimers()).isEmpty();
+	}
+}